@@ -0,0 +1,162 @@
+package course.concurrency.exams.auction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AuctionAdaptive implements Auction {
+
+    private static final int CAS_ATTEMPTS = 8;
+    private static final int QUIET_PASSES = 64;
+
+    private static final int PENDING = 0;
+    private static final int ACCEPTED = 1;
+    private static final int REJECTED = 2;
+
+    private final BidNotifier notifier;
+    private final int casAttempts;
+    private final AtomicReference<Bid> latestBid = new AtomicReference<>(new Bid(0L, 0L, 0L));
+
+    private final ConcurrentLinkedQueue<Request> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean combinerLock = new AtomicBoolean();
+    private volatile boolean combining;
+    private int quietPasses;
+
+    private final LongAdder casRetries = new LongAdder();
+    private final LongAdder combinedBids = new LongAdder();
+    private final LongAdder combinerPasses = new LongAdder();
+
+    public AuctionAdaptive(BidNotifier notifier) {
+        this(notifier, CAS_ATTEMPTS);
+    }
+
+    public AuctionAdaptive(BidNotifier notifier, int casAttempts) {
+        this.notifier = notifier;
+        this.casAttempts = casAttempts;
+    }
+
+    public boolean propose(Bid bid) {
+        if (!combining) {
+            for (int attempt = 0; attempt < casAttempts; attempt++) {
+                Bid latestBid = this.latestBid.get();
+                if (bid.getPrice() <= latestBid.getPrice()) {
+                    return false;
+                }
+                if (this.latestBid.compareAndSet(latestBid, bid)) {
+                    notifier.sendOutdatedMessage(latestBid);
+                    return true;
+                }
+                casRetries.increment();
+            }
+            combining = true;
+        }
+        if (bid.getPrice() <= latestBid.get().getPrice()) {
+            return false;
+        }
+        return combine(bid);
+    }
+
+    public Bid getLatestBid() {
+        return latestBid.get();
+    }
+
+    public boolean isCombining() {
+        return combining;
+    }
+
+    public long getCasRetries() {
+        return casRetries.sum();
+    }
+
+    public long getCombinedBids() {
+        return combinedBids.sum();
+    }
+
+    public long getCombinerPasses() {
+        return combinerPasses.sum();
+    }
+
+    private boolean combine(Bid bid) {
+        Request request = new Request(bid);
+        pending.offer(request);
+        while (request.state == PENDING) {
+            if (!combinerLock.get() && combinerLock.compareAndSet(false, true)) {
+                try {
+                    applyPending();
+                } finally {
+                    combinerLock.set(false);
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        if (request.state == ACCEPTED) {
+            notifier.sendOutdatedMessage(request.outdated);
+            return true;
+        }
+        return false;
+    }
+
+    // batch is applied as if its bids arrived in ascending price order, so one CAS publishes the winner
+    private void applyPending() {
+        List<Request> batch = new ArrayList<>();
+        Request next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.sort(Comparator.comparingLong(request -> request.bid.getPrice()));
+        int winner = batch.size() - 1;
+        while (winner > 0 && batch.get(winner - 1).bid.getPrice().equals(batch.get(winner).bid.getPrice())) {
+            winner--;
+        }
+        Bid highest = batch.get(winner).bid;
+
+        Bid latestBid;
+        boolean published;
+        do {
+            latestBid = this.latestBid.get();
+            published = highest.getPrice() > latestBid.getPrice();
+        } while (published && !this.latestBid.compareAndSet(latestBid, highest));
+
+        Bid previous = latestBid;
+        for (Request request : batch) {
+            if (published && request.bid.getPrice() > previous.getPrice()) {
+                request.outdated = previous;
+                previous = request.bid;
+                request.state = ACCEPTED;
+            } else {
+                request.state = REJECTED;
+            }
+        }
+
+        combinerPasses.increment();
+        combinedBids.add(batch.size());
+        adaptMode(batch.size());
+    }
+
+    private void adaptMode(int batchSize) {
+        if (batchSize > 1) {
+            quietPasses = 0;
+        } else if (++quietPasses >= QUIET_PASSES && casAttempts > 0) {
+            quietPasses = 0;
+            combining = false;
+        }
+    }
+
+    private static final class Request {
+        private final Bid bid;
+        private Bid outdated;
+        private volatile int state = PENDING;
+
+        private Request(Bid bid) {
+            this.bid = bid;
+        }
+    }
+}
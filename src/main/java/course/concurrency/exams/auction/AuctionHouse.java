@@ -0,0 +1,98 @@
+package course.concurrency.exams.auction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+public class AuctionHouse {
+
+    private static final Bid EMPTY_BID = new Bid(0L, 0L, 0L);
+
+    private final BidNotifier notifier;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public AuctionHouse(BidNotifier notifier) {
+        this(notifier, Runtime.getRuntime().availableProcessors() * 4, 1 << 16);
+    }
+
+    public AuctionHouse(BidNotifier notifier, int stripeCount, int expectedLots) {
+        if (stripeCount <= 0 || expectedLots < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.notifier = notifier;
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[Math.max(size, 1)];
+        this.mask = stripes.length - 1;
+        int lotsPerStripe = expectedLots / stripes.length + 1;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(lotsPerStripe);
+        }
+    }
+
+    public boolean propose(long lotId, Bid bid) {
+        Lot lot = lot(lotId, bid.getPrice() > EMPTY_BID.getPrice());
+        if (lot == null) {
+            return false;
+        }
+        Bid latestBid;
+        do {
+            latestBid = lot.latestBid;
+            if (bid.getPrice() <= latestBid.getPrice()) {
+                return false;
+            }
+        } while (!LotValue.LATEST_BID.compareAndSet(lot, latestBid, bid));
+        notifier.sendOutdatedMessage(latestBid);
+        return true;
+    }
+
+    public Bid getLatestBid(long lotId) {
+        Lot lot = lot(lotId, false);
+        return lot == null ? EMPTY_BID : lot.latestBid;
+    }
+
+    public int getLotCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.lots.size();
+        }
+        return count;
+    }
+
+    private Lot lot(long lotId, boolean create) {
+        ConcurrentHashMap<Long, Lot> lots = stripes[stripeIndex(lotId)].lots;
+        Lot lot = lots.get(lotId);
+        if (lot == null && create) {
+            lot = lots.computeIfAbsent(lotId, id -> new Lot());
+        }
+        return lot;
+    }
+
+    private int stripeIndex(long lotId) {
+        long h = lotId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class Stripe {
+        private final ConcurrentHashMap<Long, Lot> lots;
+
+        private Stripe(int expectedLots) {
+            this.lots = new ConcurrentHashMap<>(expectedLots);
+        }
+    }
+
+    // hot lots are padded on both sides so that CAS on one of them does not invalidate its neighbours
+    private static final class Lot extends LotValue {
+        private long p10, p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    private static class LotValue extends LotPadding {
+        static final AtomicReferenceFieldUpdater<LotValue, Bid> LATEST_BID =
+                AtomicReferenceFieldUpdater.newUpdater(LotValue.class, Bid.class, "latestBid");
+
+        volatile Bid latestBid = EMPTY_BID;
+    }
+
+    private static class LotPadding {
+        private long p00, p01, p02, p03, p04, p05, p06, p07;
+    }
+}
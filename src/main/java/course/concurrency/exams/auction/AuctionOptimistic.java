@@ -4,11 +4,16 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public class AuctionOptimistic implements Auction {
 
-    private final Notifier notifier;
-    private final AtomicReference<Bid> latestBid = new AtomicReference<>(new Bid(0L, 0L, 0L));
+    private final BidNotifier notifier;
+    private final AtomicReference<Bid> latestBid;
 
-    public AuctionOptimistic(Notifier notifier) {
+    public AuctionOptimistic(BidNotifier notifier) {
+        this(notifier, new Bid(0L, 0L, 0L));
+    }
+
+    public AuctionOptimistic(BidNotifier notifier, Bid latestBid) {
         this.notifier = notifier;
+        this.latestBid = new AtomicReference<>(latestBid);
     }
 
     public boolean propose(Bid bid) {
@@ -0,0 +1,78 @@
+package course.concurrency.exams.auction;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+public class AuctionOptimisticPrimitive implements Auction {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup()
+                    .findVarHandle(AuctionOptimisticPrimitive.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final BidNotifier notifier;
+
+    // odd sequence means that a writer is updating the bid fields
+    private volatile long sequence;
+    private volatile long price;
+    private long id;
+    private long participantId;
+
+    public AuctionOptimisticPrimitive(BidNotifier notifier) {
+        this.notifier = notifier;
+    }
+
+    public boolean propose(Bid bid) {
+        return propose(bid.getId(), bid.getParticipantId(), bid.getPrice());
+    }
+
+    public boolean propose(long id, long participantId, long price) {
+        long sequence;
+        do {
+            if (price <= this.price) {
+                return false;
+            }
+            sequence = this.sequence;
+        } while ((sequence & 1) != 0 || !SEQUENCE.compareAndSet(this, sequence, sequence + 1));
+
+        long latestId = this.id;
+        long latestParticipantId = this.participantId;
+        long latestPrice = this.price;
+        if (price <= latestPrice) {
+            this.sequence = sequence + 2;
+            return false;
+        }
+        this.id = id;
+        this.participantId = participantId;
+        this.price = price;
+        this.sequence = sequence + 2;
+
+        notifier.sendOutdatedMessage(latestId, latestParticipantId, latestPrice);
+        return true;
+    }
+
+    public Bid getLatestBid() {
+        long sequence;
+        long id;
+        long participantId;
+        long price;
+        do {
+            sequence = this.sequence;
+            id = this.id;
+            participantId = this.participantId;
+            price = this.price;
+            VarHandle.acquireFence();
+        } while ((sequence & 1) != 0 || sequence != this.sequence);
+        return new Bid(id, participantId, price);
+    }
+
+    public long getLatestPrice() {
+        return price;
+    }
+}
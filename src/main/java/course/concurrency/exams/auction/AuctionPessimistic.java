@@ -2,10 +2,10 @@ package course.concurrency.exams.auction;
 
 public class AuctionPessimistic implements Auction {
 
-    private final Notifier notifier;
+    private final BidNotifier notifier;
     private volatile Bid latestBid = new Bid(0L, 0L, 0L);
 
-    public AuctionPessimistic(Notifier notifier) {
+    public AuctionPessimistic(BidNotifier notifier) {
         this.notifier = notifier;
     }
 
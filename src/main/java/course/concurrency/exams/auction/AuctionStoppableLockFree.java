@@ -0,0 +1,79 @@
+package course.concurrency.exams.auction;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AuctionStoppableLockFree implements AuctionStoppable {
+
+    private final BidNotifier notifier;
+    private final AtomicReference<State> state = new AtomicReference<>(new State(new Bid(0L, 0L, 0L)));
+    // set once by the first stopper, proposers that see it no longer touch the state
+    private volatile boolean closing;
+
+    public AuctionStoppableLockFree(BidNotifier notifier) {
+        this.notifier = notifier;
+    }
+
+    public boolean propose(Bid bid) {
+        State current;
+        do {
+            if (closing) {
+                return false;
+            }
+            current = state.get();
+            if (current.isClosed() || bid.getPrice() <= current.bid().getPrice()) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, new State(bid)));
+        notifier.sendOutdatedMessage(current.bid());
+        return true;
+    }
+
+    public Bid getLatestBid() {
+        return state.get().bid();
+    }
+
+    /**
+     * Closing is one unconditional write that turns away every proposer checking the marker afterwards.
+     * Only proposers already past the check can still move the state, each of them once, so installing
+     * the closed state with its final bid fails at most once per proposer in flight and never spins on
+     * a stream of new bids. Readers never see a closed state without its bid.
+     */
+    public Bid stopAuction() {
+        closing = true;
+        while (true) {
+            State current = state.get();
+            if (current.isClosed()) {
+                return current.bid();
+            }
+            if (state.compareAndSet(current, new State(current.bid(), true))) {
+                return current.bid();
+            }
+        }
+    }
+
+    public boolean isTerminated() {
+        return state.get().isClosed();
+    }
+
+    private static final class State {
+        private final Bid bid;
+        private final boolean closed;
+
+        private State(Bid bid) {
+            this(bid, false);
+        }
+
+        private State(Bid bid, boolean closed) {
+            this.bid = bid;
+            this.closed = closed;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        Bid bid() {
+            return bid;
+        }
+    }
+}
@@ -4,11 +4,11 @@ import java.util.concurrent.atomic.AtomicMarkableReference;
 
 public class AuctionStoppableOptimistic implements AuctionStoppable {
 
-    private final Notifier notifier;
+    private final BidNotifier notifier;
     private final AtomicMarkableReference<Bid> latestBid =
             new AtomicMarkableReference<>(new Bid(0L, 0L, 0L), false);
 
-    public AuctionStoppableOptimistic(Notifier notifier) {
+    public AuctionStoppableOptimistic(BidNotifier notifier) {
         this.notifier = notifier;
     }
 
@@ -2,11 +2,11 @@ package course.concurrency.exams.auction;
 
 public class AuctionStoppablePessimistic implements AuctionStoppable {
 
-    private final Notifier notifier;
+    private final BidNotifier notifier;
     private volatile Bid latestBid = new Bid(0L, 0L, 0L);
     private volatile boolean isTerminated;
 
-    public AuctionStoppablePessimistic(Notifier notifier) {
+    public AuctionStoppablePessimistic(BidNotifier notifier) {
         this.notifier = notifier;
     }
 
@@ -0,0 +1,159 @@
+package course.concurrency.exams.auction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BidJournal implements AutoCloseable {
+
+    // commit, lotId, bidId, participantId, price
+    public static final int RECORD_SIZE = 5 * Long.BYTES;
+
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final long COMMITTED = 1;
+    // a reserved slot whose bid was not accepted, kept apart from the holes a crash leaves
+    private static final long CANCELLED = -1;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong next;
+    // slot of the highest bid of every lot, so the latest bid is found without a scan
+    private final ConcurrentHashMap<Long, AtomicLong> latest = new ConcurrentHashMap<>();
+
+    public BidJournal(Path file, int capacity) {
+        if (capacity <= 0 || (long) capacity * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported journal capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.next = new AtomicLong(findEnd());
+        long end = next.get();
+        for (int index = 0; index < end; index++) {
+            if ((long) LONGS.getAcquire(buffer, index * RECORD_SIZE) == COMMITTED) {
+                index((long) LONGS.get(buffer, index * RECORD_SIZE + Long.BYTES), index);
+            }
+        }
+    }
+
+    public void append(long lotId, Bid bid) {
+        write(reserve(), lotId, bid);
+    }
+
+    // lock-free: every appender reserves its own slot and commits it with a release store
+    public long reserve() {
+        long index = next.getAndIncrement();
+        if (index >= capacity) {
+            throw new IllegalStateException("Bid journal is full");
+        }
+        return index;
+    }
+
+    public void write(long slot, long lotId, Bid bid) {
+        int offset = (int) slot * RECORD_SIZE;
+        LONGS.set(buffer, offset + Long.BYTES, lotId);
+        LONGS.set(buffer, offset + 2 * Long.BYTES, bid.getId());
+        LONGS.set(buffer, offset + 3 * Long.BYTES, bid.getParticipantId());
+        LONGS.set(buffer, offset + 4 * Long.BYTES, bid.getPrice());
+        LONGS.setRelease(buffer, offset, COMMITTED);
+        index(lotId, slot);
+    }
+
+    public void cancel(long slot) {
+        LONGS.setRelease(buffer, (int) slot * RECORD_SIZE, CANCELLED);
+    }
+
+    public void replay(Consumer consumer) {
+        long end = Math.min(next.get(), capacity);
+        for (int index = 0; index < end; index++) {
+            int offset = index * RECORD_SIZE;
+            if ((long) LONGS.getAcquire(buffer, offset) != COMMITTED) {
+                continue;
+            }
+            long lotId = (long) LONGS.get(buffer, offset + Long.BYTES);
+            consumer.accept(lotId, new Bid(
+                    (long) LONGS.get(buffer, offset + 2 * Long.BYTES),
+                    (long) LONGS.get(buffer, offset + 3 * Long.BYTES),
+                    (long) LONGS.get(buffer, offset + 4 * Long.BYTES)));
+        }
+    }
+
+    public Bid latestBid(long lotId) {
+        AtomicLong slot = latest.get(lotId);
+        if (slot == null) {
+            return new Bid(0L, 0L, 0L);
+        }
+        int offset = (int) slot.get() * RECORD_SIZE;
+        return new Bid(
+                (long) LONGS.get(buffer, offset + 2 * Long.BYTES),
+                (long) LONGS.get(buffer, offset + 3 * Long.BYTES),
+                (long) LONGS.get(buffer, offset + 4 * Long.BYTES));
+    }
+
+    public long size() {
+        return Math.min(next.get(), capacity);
+    }
+
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // records may be committed slightly out of order, so the winner is the highest price
+    private void index(long lotId, long slot) {
+        AtomicLong best = latest.computeIfAbsent(lotId, id -> new AtomicLong(slot));
+        while (true) {
+            long current = best.get();
+            if (current == slot || price(current) >= price(slot)) {
+                return;
+            }
+            if (best.compareAndSet(current, slot)) {
+                return;
+            }
+        }
+    }
+
+    private long price(long slot) {
+        return (long) LONGS.get(buffer, (int) slot * RECORD_SIZE + 4 * Long.BYTES);
+    }
+
+    // a crash can leave holes of uncommitted slots, but never more than the appenders in flight
+    private long findEnd() {
+        long end = 0;
+        for (int index = 0; index < capacity && index - end < MAX_IN_FLIGHT; index++) {
+            if ((long) LONGS.getAcquire(buffer, index * RECORD_SIZE) != 0) {
+                end = index + 1;
+            }
+        }
+        return end;
+    }
+
+    public interface Consumer {
+        void accept(long lotId, Bid bid);
+    }
+}
@@ -0,0 +1,13 @@
+package course.concurrency.exams.auction;
+
+// what auctions need from a notifier, implementations bring their own delivery
+public interface BidNotifier {
+
+    void sendOutdatedMessage(Bid bid);
+
+    void sendOutdatedMessage(long bidId, long participantId, long price);
+
+    void shutdown();
+
+    void shutdownWithTimeout();
+}
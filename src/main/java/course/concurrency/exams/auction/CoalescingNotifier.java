@@ -0,0 +1,172 @@
+package course.concurrency.exams.auction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// implements BidNotifier rather than extending Notifier, so it does not start the pool of the legacy notifier
+public class CoalescingNotifier implements BidNotifier {
+
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final long offerTimeoutMillis;
+    private final long sendDelayMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+    private final ThreadPoolExecutor sender;
+
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder sendLatencyTotal = new LongAdder();
+    private final LongAccumulator sendLatencyMax = new LongAccumulator(Long::max, 0);
+
+    public CoalescingNotifier() {
+        this(100, 100_000, 10, 4, 2000);
+    }
+
+    public CoalescingNotifier(long flushIntervalMillis, int capacity, long offerTimeoutMillis,
+                              int senders, long sendDelayMillis) {
+        this.permits = new Semaphore(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.sendDelayMillis = sendDelayMillis;
+        this.sender = new ThreadPoolExecutor(senders, senders, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senders), new ThreadPoolExecutor.CallerRunsPolicy());
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void sendOutdatedMessage(Bid bid) {
+        Long participantId = bid.getParticipantId();
+        if (pending.computeIfPresent(participantId, (k, v) -> v.update(bid)) != null) {
+            coalesced.increment();
+            return;
+        }
+        try {
+            if (!permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                dropped.increment();
+                return;
+            }
+        } catch (InterruptedException e) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Pending fresh = new Pending(bid, System.nanoTime());
+        if (pending.merge(participantId, fresh, (v, update) -> v.update(bid)) != fresh) {
+            permits.release();
+            coalesced.increment();
+        }
+    }
+
+    @Override
+    public void sendOutdatedMessage(long bidId, long participantId, long price) {
+        sendOutdatedMessage(new Bid(bidId, participantId, price));
+    }
+
+    @Override
+    public void shutdown() {
+        flusher.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    @Override
+    public void shutdownWithTimeout() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(600, TimeUnit.SECONDS);
+            flush();
+            sender.shutdown();
+            if (!sender.awaitTermination(600, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.sum();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.sum();
+    }
+
+    public double getAverageSendLatencyMillis() {
+        long messages = sentMessages.sum();
+        return messages == 0 ? 0 : sendLatencyTotal.sum() / 1_000_000.0 / messages;
+    }
+
+    public long getMaxSendLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(sendLatencyMax.get());
+    }
+
+    // one send per flush, carrying only the latest outbid bid of every participant
+    protected void send(List<Bid> batch) {
+        try {
+            Thread.sleep(sendDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Pending> batch = new ArrayList<>();
+        for (Long participantId : pending.keySet()) {
+            Pending next = pending.remove(participantId);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+        permits.release(batch.size());
+        if (!batch.isEmpty()) {
+            sender.execute(() -> deliver(batch));
+        }
+    }
+
+    private void deliver(List<Pending> batch) {
+        send(batch.stream().map(p -> p.bid).collect(Collectors.toList()));
+        long now = System.nanoTime();
+        for (Pending sent : batch) {
+            long latency = now - sent.since;
+            sendLatencyTotal.add(latency);
+            sendLatencyMax.accumulate(latency);
+        }
+        sentMessages.add(batch.size());
+        sentBatches.increment();
+    }
+
+    private static final class Pending {
+        private final Bid bid;
+        private final long since;
+
+        private Pending(Bid bid, long since) {
+            this.bid = bid;
+            this.since = since;
+        }
+
+        private Pending update(Bid outdated) {
+            return outdated.getPrice() >= bid.getPrice() ? new Pending(outdated, since) : this;
+        }
+    }
+}
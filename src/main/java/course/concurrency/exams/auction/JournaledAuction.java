@@ -0,0 +1,38 @@
+package course.concurrency.exams.auction;
+
+public class JournaledAuction implements Auction {
+
+    private final Auction auction;
+    private final BidJournal journal;
+    private final long lotId;
+
+    public JournaledAuction(Auction auction, BidJournal journal, long lotId) {
+        this.auction = auction;
+        this.journal = journal;
+        this.lotId = lotId;
+    }
+
+    public static JournaledAuction recover(BidJournal journal, long lotId, BidNotifier notifier) {
+        Auction auction = new AuctionOptimistic(notifier, journal.latestBid(lotId));
+        return new JournaledAuction(auction, journal, lotId);
+    }
+
+    // the slot is taken before the auction sees the bid, so an accepted bid always has room in the journal
+    public boolean propose(Bid bid) {
+        // bids that cannot win do not take a slot
+        if (bid.getPrice() <= auction.getLatestBid().getPrice()) {
+            return false;
+        }
+        long slot = journal.reserve();
+        if (auction.propose(bid)) {
+            journal.write(slot, lotId, bid);
+            return true;
+        }
+        journal.cancel(slot);
+        return false;
+    }
+
+    public Bid getLatestBid() {
+        return auction.getLatestBid();
+    }
+}
@@ -0,0 +1,68 @@
+package course.concurrency.exams.auction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Leaderboard {
+
+    private static final Bid[] EMPTY = new Bid[0];
+
+    private final int capacity;
+    // sorted by price descending, one bid per participant, never modified after publication
+    private final AtomicReference<Bid[]> top = new AtomicReference<>(EMPTY);
+
+    public Leaderboard(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Leaderboard capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public boolean offer(Bid bid) {
+        Bid[] current;
+        Bid[] updated;
+        do {
+            current = top.get();
+            if (current.length == capacity && bid.getPrice() <= current[capacity - 1].getPrice()) {
+                return false;
+            }
+            updated = insert(current, bid);
+            if (updated == null) {
+                return false;
+            }
+        } while (!top.compareAndSet(current, updated));
+        return true;
+    }
+
+    public List<Bid> getTopBids() {
+        return Collections.unmodifiableList(Arrays.asList(top.get()));
+    }
+
+    private Bid[] insert(Bid[] current, Bid bid) {
+        int position = 0;
+        while (position < current.length && current[position].getPrice() >= bid.getPrice()) {
+            if (current[position].getParticipantId().equals(bid.getParticipantId())) {
+                return null;
+            }
+            position++;
+        }
+        // the participant may already be listed below with a lower price
+        int previous = position;
+        while (previous < current.length
+                && !current[previous].getParticipantId().equals(bid.getParticipantId())) {
+            previous++;
+        }
+        int length = previous < current.length ? current.length : Math.min(current.length + 1, capacity);
+        Bid[] updated = new Bid[length];
+        System.arraycopy(current, 0, updated, 0, position);
+        updated[position] = bid;
+        int tail = previous < current.length ? previous : length - 1;
+        System.arraycopy(current, position, updated, position + 1, tail - position);
+        if (previous < current.length) {
+            System.arraycopy(current, previous + 1, updated, previous + 1, current.length - previous - 1);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,31 @@
+package course.concurrency.exams.auction;
+
+import java.util.List;
+
+public class LeaderboardAuction implements Auction {
+
+    private final Auction auction;
+    private final Leaderboard leaderboard;
+
+    public LeaderboardAuction(Auction auction, int topSize) {
+        this.auction = auction;
+        this.leaderboard = new Leaderboard(topSize);
+    }
+
+    public boolean propose(Bid bid) {
+        // only bids the auction accepted make it to the leaderboard
+        if (!auction.propose(bid)) {
+            return false;
+        }
+        leaderboard.offer(bid);
+        return true;
+    }
+
+    public Bid getLatestBid() {
+        return auction.getLatestBid();
+    }
+
+    public List<Bid> getTopBids() {
+        return leaderboard.getTopBids();
+    }
+}
@@ -1,12 +1,23 @@
 package course.concurrency.exams.auction;
 
+import course.concurrency.m2_async.executors.BlockingExecutors;
+import course.concurrency.m2_async.executors.ExecutionMode;
+
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-public class Notifier {
-    private final ExecutorService executor = initPool();
+public class Notifier implements BidNotifier {
+    private final ExecutorService executor;
+
+    public Notifier() {
+        this(ExecutionMode.PLATFORM);
+    }
+
+    public Notifier(ExecutionMode mode) {
+        this.executor = BlockingExecutors.create(mode, this::initPool);
+    }
 
     private void imitateSending() {
         try {
@@ -16,10 +27,12 @@ public class Notifier {
         }
     }
 
+    @Override
     public void shutdown() {
         executor.shutdownNow();
     }
 
+    @Override
     public void shutdownWithTimeout() {
         executor.shutdown();
         try {
@@ -32,10 +45,16 @@ public class Notifier {
         }
     }
 
+    @Override
     public void sendOutdatedMessage(Bid bid) {
         executor.submit(this::imitateSending);
     }
 
+    @Override
+    public void sendOutdatedMessage(long bidId, long participantId, long price) {
+        executor.submit(this::imitateSending);
+    }
+
     private ExecutorService initPool() {
         ThreadPoolExecutor executor = new ThreadPoolExecutor(
                 1_000,
@@ -0,0 +1,76 @@
+package course.concurrency.exams.auction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TimedAuction implements AuctionStoppable {
+
+    private final AuctionStoppable auction;
+    private final TimingWheel wheel;
+    private final long snipingWindowNanos;
+    private final long extensionNanos;
+    private final AtomicReference<TimingWheel.Timeout> closing = new AtomicReference<>();
+
+    public TimedAuction(AuctionStoppable auction, TimingWheel wheel, long deadlineNanos) {
+        this(auction, wheel, deadlineNanos, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    // a bid accepted less than snipingWindow before the deadline moves the deadline to now + extension
+    public TimedAuction(AuctionStoppable auction, TimingWheel wheel, long deadlineNanos,
+                        long snipingWindow, long extension, TimeUnit unit) {
+        this.auction = auction;
+        this.wheel = wheel;
+        this.snipingWindowNanos = unit.toNanos(snipingWindow);
+        this.extensionNanos = unit.toNanos(extension);
+        closing.set(wheel.schedule(auction::stopAuction, deadlineNanos));
+    }
+
+    public boolean propose(Bid bid) {
+        if (!auction.propose(bid)) {
+            return false;
+        }
+        if (snipingWindowNanos > 0) {
+            extendDeadline(wheel.now());
+        }
+        return true;
+    }
+
+    public Bid getLatestBid() {
+        return auction.getLatestBid();
+    }
+
+    public Bid stopAuction() {
+        closing.get().cancel();
+        return auction.stopAuction();
+    }
+
+    public long getDeadlineNanos() {
+        return closing.get().getDeadlineNanos();
+    }
+
+    private void extendDeadline(long now) {
+        TimingWheel.Timeout extended = null;
+        while (true) {
+            TimingWheel.Timeout current = closing.get();
+            long remaining = current.getDeadlineNanos() - now;
+            // expired or cancelled: the auction is being or has already been closed
+            if (remaining > snipingWindowNanos || remaining >= extensionNanos
+                    || current.isExpired() || current.isCancelled()) {
+                break;
+            }
+            if (extended == null) {
+                extended = wheel.schedule(auction::stopAuction, now + extensionNanos);
+            }
+            if (closing.compareAndSet(current, extended)) {
+                if (!current.cancel()) {
+                    // the old deadline fired meanwhile, so the extension must not close anything again
+                    extended.cancel();
+                }
+                return;
+            }
+        }
+        if (extended != null) {
+            extended.cancel();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package course.concurrency.exams.auction;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class TimingWheel implements AutoCloseable {
+
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final Bucket[][] wheels;
+    private final LongSupplier clock;
+    private final long startNanos;
+
+    // producers never touch the buckets, the ticking thread drains these queues
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+
+    private long currentTick;
+
+    public TimingWheel(long tick, TimeUnit unit) {
+        this(tick, unit, 256, 4, System::nanoTime);
+    }
+
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, int levels, LongSupplier clock) {
+        if (tick <= 0 || Integer.bitCount(wheelSize) != 1 || levels <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.wheels = new Bucket[levels][wheelSize];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheelSize; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    public TimingWheel start() {
+        ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    public Timeout schedule(Runnable task, long deadlineNanos) {
+        long ticks = deadlineNanos - startNanos;
+        Timeout timeout = new Timeout(this, task, deadlineNanos, (ticks + tickNanos - 1) / tickNanos);
+        pending.incrementAndGet();
+        added.offer(timeout);
+        return timeout;
+    }
+
+    public synchronized void advance() {
+        long targetTick = (clock.getAsLong() - startNanos) / tickNanos;
+        drain();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = wheels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    Timeout timeout = wheels[level][(int) (currentTick >>> (bits * level)) & mask].clear();
+                    while (timeout != null) {
+                        Timeout next = timeout.next;
+                        timeout.next = null;
+                        place(timeout);
+                        timeout = next;
+                    }
+                }
+            }
+            Timeout timeout = wheels[0][(int) currentTick & mask].clear();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                expire(timeout);
+                timeout = next;
+            }
+            drain();
+        }
+    }
+
+    private void drain() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+        while ((timeout = added.poll()) != null) {
+            place(timeout);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        if (timeout.state != WAITING) {
+            return;
+        }
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        int level = 0;
+        while (level < wheels.length - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long tick = Math.min(timeout.deadlineTick, currentTick + (1L << (bits * wheels.length)) - 1);
+        wheels[level][(int) (tick >>> (bits * level)) & mask].add(timeout);
+    }
+
+    private void expire(Timeout timeout) {
+        if (Timeout.STATE.compareAndSet(timeout, WAITING, EXPIRED)) {
+            pending.decrementAndGet();
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final long deadlineTick;
+        private volatile int state = WAITING;
+
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                wheel.cancelled.offer(this);
+                return true;
+            }
+            return false;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        Timeout clear() {
+            Timeout first = head;
+            for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+                timeout.prev = null;
+            }
+            head = null;
+            return first;
+        }
+    }
+}
@@ -1,26 +1,67 @@
 package course.concurrency.m2_async.cf;
 
-import java.util.stream.IntStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
+/**
+ * Synthetic work of the report services. The default is 50ms of CPU, override it with
+ * setWork or with -Dload=cpu:20000,sleep:30000 (kernel:micros pairs run one after another).
+ */
 public class LoadGenerator {
 
+    private static volatile List<Load> work = parse(System.getProperty("load", "cpu:50000"));
+
     private LoadGenerator() {
     }
 
     public static void work() {
-//        sleep();
-        compute();
+        for (Load load : work) {
+            load.kernel.run(load.micros);
+        }
+    }
+
+    public static void work(LoadKernel kernel, long micros) {
+        kernel.run(micros);
+    }
+
+    public static void setWork(String spec) {
+        work = parse(spec);
     }
 
-    private static void sleep() {
-        try {
-            Thread.sleep(1500);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public static String getWork() {
+        StringBuilder spec = new StringBuilder();
+        for (Load load : work) {
+            spec.append(spec.length() == 0 ? "" : ",")
+                    .append(load.kernel.name().toLowerCase(Locale.ROOT)).append(':').append(load.micros);
         }
+        return spec.toString();
     }
 
-    private static int compute() {
-        return IntStream.range(0, 5_000_000).boxed().filter(i -> i % 2 == 0).reduce((a, b) -> b).get();
+    static List<Load> parse(String spec) {
+        List<Load> loads = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] kernelAndMicros = part.trim().split(":");
+            if (kernelAndMicros.length != 2) {
+                throw new IllegalArgumentException("Expected kernel:micros but was " + part);
+            }
+            LoadKernel kernel = LoadKernel.valueOf(kernelAndMicros[0].trim().toUpperCase(Locale.ROOT));
+            long micros = Long.parseLong(kernelAndMicros[1].trim());
+            if (micros < 0) {
+                throw new IllegalArgumentException("Negative cost " + part);
+            }
+            loads.add(new Load(kernel, micros));
+        }
+        return List.copyOf(loads);
+    }
+
+    static final class Load {
+        private final LoadKernel kernel;
+        private final long micros;
+
+        private Load(LoadKernel kernel, long micros) {
+            this.kernel = kernel;
+            this.micros = micros;
+        }
     }
-}
\ No newline at end of file
+}
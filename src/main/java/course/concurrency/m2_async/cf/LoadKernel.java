@@ -0,0 +1,166 @@
+package course.concurrency.m2_async.cf;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+public enum LoadKernel {
+
+    // arithmetic on registers only, no memory traffic and no allocation
+    CPU {
+        @Override
+        long runUnits(long units) {
+            long x = units | 1;
+            for (long i = 0; i < units; i++) {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+            }
+            return x;
+        }
+    },
+    // one load per cache line of an array larger than the last level cache
+    MEMORY {
+        @Override
+        long runUnits(long units) {
+            long[] data = Memory.DATA;
+            int mask = data.length - 1;
+            long sum = 0;
+            // a random start keeps short calls, like the calibration ones, from rereading cached lines
+            int position = ThreadLocalRandom.current().nextInt(data.length) & ~(Memory.LINE - 1);
+            for (long i = 0; i < units; i++) {
+                sum += data[position];
+                position = (position + Memory.LINE) & mask;
+            }
+            return sum;
+        }
+    },
+    // short-lived garbage, the cost is mostly in the allocator and young collections
+    ALLOCATION {
+        @Override
+        long runUnits(long units) {
+            long sum = 0;
+            for (long i = 0; i < units; i++) {
+                long[] garbage = new long[8];
+                garbage[(int) (i & 7)] = i;
+                sum += garbage[(int) (i & 7)] + garbage.length;
+            }
+            return sum;
+        }
+    },
+    // blocking I/O, holds a thread but no core
+    SLEEP {
+        @Override
+        long runUnits(long units) {
+            return units;
+        }
+
+        // a unit is a microsecond of waiting, there is nothing to measure
+        @Override
+        boolean isTimed() {
+            return true;
+        }
+
+        @Override
+        public void run(long micros) {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            long remaining;
+            // an interrupted thread does not park, so it gives up the rest of the wait and keeps its flag
+            while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    },
+    // the original generator, mostly boxing and garbage collection
+    BOXED_STREAM {
+        @Override
+        long runUnits(long units) {
+            return IntStream.range(0, (int) Math.min(units, Integer.MAX_VALUE))
+                    .boxed().filter(i -> i % 2 == 0).reduce((a, b) -> b).orElse(0);
+        }
+    };
+
+    private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long ROUND_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final int MIN_CALIBRATION_ROUNDS = 10;
+    private static final int MAX_CALIBRATION_ROUNDS = 100;
+    private static final long MAX_BATCH_UNITS = 1L << 40;
+
+    // results are published here so that the JIT cannot drop the work
+    static volatile long sink;
+
+    private volatile double unitsPerMicro;
+
+    abstract long runUnits(long units);
+
+    boolean isTimed() {
+        return false;
+    }
+
+    public void run(long micros) {
+        if (micros <= 0) {
+            return;
+        }
+        sink = runUnits(Math.max(1, Math.round(micros * getUnitsPerMicro())));
+    }
+
+    public double getUnitsPerMicro() {
+        double rate = unitsPerMicro;
+        return rate > 0 ? rate : ensureCalibrated();
+    }
+
+    // threads that found no rate wait for the first calibration instead of repeating it one after another
+    private synchronized double ensureCalibrated() {
+        double rate = unitsPerMicro;
+        return rate > 0 ? rate : calibrate();
+    }
+
+    // forces a fresh measurement, batches grow until a call takes a millisecond so its fixed cost does not
+    // count, then rounds repeat for a while and until two in a row agree, which waits out the JIT compiling
+    // the kernel
+    public synchronized double calibrate() {
+        if (isTimed()) {
+            unitsPerMicro = 1;
+            return 1;
+        }
+        long units = 1_000;
+        long elapsed;
+        do {
+            long start = System.nanoTime();
+            sink = runUnits(units);
+            elapsed = System.nanoTime() - start;
+            if (elapsed < BATCH_NANOS) {
+                if (units >= MAX_BATCH_UNITS) {
+                    throw new IllegalStateException(this + " does not take longer with more units");
+                }
+                units *= 2;
+            }
+        } while (elapsed < BATCH_NANOS);
+
+        double previous = 0;
+        double rate = 0;
+        for (int round = 0; round < MAX_CALIBRATION_ROUNDS; round++) {
+            long done = 0;
+            long start = System.nanoTime();
+            elapsed = 0;
+            while (elapsed < ROUND_NANOS) {
+                sink = runUnits(units);
+                done += units;
+                elapsed = System.nanoTime() - start;
+            }
+            previous = rate;
+            rate = done / (elapsed / 1_000.0);
+            if (round >= MIN_CALIBRATION_ROUNDS && Math.abs(rate - previous) < rate * 0.05) {
+                break;
+            }
+        }
+        unitsPerMicro = rate;
+        return rate;
+    }
+
+    private static final class Memory {
+        private static final int LINE = 8;
+        private static final long[] DATA = new long[1 << 23];
+    }
+}
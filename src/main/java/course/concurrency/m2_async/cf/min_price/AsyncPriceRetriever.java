@@ -0,0 +1,9 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncPriceRetriever {
+
+    // must not block the calling thread, failures are reported through the future
+    CompletableFuture<Double> getPriceAsync(long itemId, long shopId);
+}
@@ -0,0 +1,21 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public interface BatchPriceRetriever {
+
+    // items without a price are simply absent from the result
+    Map<Long, Double> getPrices(long shopId, Collection<Long> itemIds);
+
+    static BatchPriceRetriever perItem(PriceRetriever priceRetriever) {
+        return (shopId, itemIds) -> {
+            Map<Long, Double> prices = new HashMap<>();
+            for (Long itemId : itemIds) {
+                prices.put(itemId, priceRetriever.getPrice(itemId, shopId));
+            }
+            return prices;
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BlockingPriceRetrieverAdapter implements AsyncPriceRetriever {
+
+    private final PriceRetriever priceRetriever;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Queue<Lookup> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // admitted and not finished, running or waiting
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    public BlockingPriceRetrieverAdapter(PriceRetriever priceRetriever, Executor executor, int maxConcurrency,
+                                         int maxQueued) {
+        if (maxConcurrency <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.priceRetriever = priceRetriever;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+    }
+
+    // at most maxConcurrency lookups hold a thread and at most maxQueued more wait in the queue without one,
+    // so with maxQueued 0 a lookup is only accepted when a thread is free for it
+    @Override
+    public CompletableFuture<Double> getPriceAsync(long itemId, long shopId) {
+        if (pending.incrementAndGet() > (long) maxConcurrency + maxQueued) {
+            pending.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending lookups"));
+        }
+        Lookup lookup = new Lookup(itemId, shopId);
+        queued.incrementAndGet();
+        queue.add(lookup);
+        drain();
+        return lookup.price;
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private void drain() {
+        while (!queue.isEmpty()) {
+            int current = running.get();
+            if (current >= maxConcurrency) {
+                // the lookup running now will drain the queue when it finishes
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Lookup lookup = queue.poll();
+            if (lookup == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            if (lookup.price.isDone()) {
+                // cancelled or timed out by the caller while queued
+                running.decrementAndGet();
+                pending.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> run(lookup));
+            } catch (RejectedExecutionException e) {
+                lookup.price.completeExceptionally(e);
+                running.decrementAndGet();
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void run(Lookup lookup) {
+        try {
+            lookup.price.complete(priceRetriever.getPrice(lookup.itemId, lookup.shopId));
+        } catch (Throwable e) {
+            lookup.price.completeExceptionally(e);
+        } finally {
+            pending.decrementAndGet();
+            running.decrementAndGet();
+            drain();
+        }
+    }
+
+    private static final class Lookup {
+        private final long itemId;
+        private final long shopId;
+        private final CompletableFuture<Double> price = new CompletableFuture<>();
+
+        private Lookup(long itemId, long shopId) {
+            this.itemId = itemId;
+            this.shopId = shopId;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static java.lang.Double.NaN;
+
+public class BulkheadPriceRetriever extends PriceRetriever {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int REJECTED = 0;
+    private static final int PERMITTED = 1;
+    private static final int PROBE = 2;
+    private static final double BACKOFF = 0.5;
+
+    private final PriceRetriever priceRetriever;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long slowCallNanos;
+    private final double failureRateThreshold;
+    private final int windowSize;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Long, Shop> shops = new ConcurrentHashMap<>();
+
+    public BulkheadPriceRetriever(PriceRetriever priceRetriever) {
+        this(priceRetriever, 1, 20, 2800, 0.5, 20, 10_000, System::nanoTime);
+    }
+
+    /**
+     * @param minLimit             concurrent calls a shop is always allowed, also the initial limit
+     * @param maxLimit             upper bound of the adaptive limit
+     * @param slowCallMillis       calls slower than this count as failures and halve the limit
+     * @param failureRateThreshold share of failed calls in the window that opens the circuit
+     * @param windowSize           number of recent calls the failure rate is computed over
+     * @param openMillis           time an open circuit skips the shop before a single probe call is let through
+     */
+    public BulkheadPriceRetriever(PriceRetriever priceRetriever, int minLimit, int maxLimit, long slowCallMillis,
+                                  double failureRateThreshold, int windowSize, long openMillis,
+                                  LongSupplier clock) {
+        if (minLimit <= 0 || maxLimit < minLimit || slowCallMillis <= 0 || failureRateThreshold <= 0
+                || failureRateThreshold > 1 || windowSize <= 0 || openMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.priceRetriever = priceRetriever;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.failureRateThreshold = failureRateThreshold;
+        this.windowSize = windowSize;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.clock = clock;
+    }
+
+    // a rejected or short-circuited call answers NaN at once instead of holding an executor thread
+    @Override
+    public double getPrice(long itemId, long shopId) {
+        Shop shop = shops.computeIfAbsent(shopId, id -> new Shop());
+        int permit = shop.tryAcquire(clock.getAsLong());
+        if (permit == REJECTED) {
+            return NaN;
+        }
+        long start = clock.getAsLong();
+        boolean success = false;
+        try {
+            double price = priceRetriever.getPrice(itemId, shopId);
+            success = true;
+            return price;
+        } finally {
+            long end = clock.getAsLong();
+            shop.release(permit, success, end - start, end);
+        }
+    }
+
+    public ShopMetrics getMetrics(long shopId) {
+        Shop shop = shops.get(shopId);
+        return shop == null ? new Shop().snapshot() : shop.snapshot();
+    }
+
+    public Map<Long, ShopMetrics> getMetrics() {
+        Map<Long, ShopMetrics> metrics = new TreeMap<>();
+        shops.forEach((shopId, shop) -> metrics.put(shopId, shop.snapshot()));
+        return metrics;
+    }
+
+    public static final class ShopMetrics {
+        private final CircuitState state;
+        private final int limit;
+        private final int inFlight;
+        private final long calls;
+        private final long failures;
+        private final long rejected;
+        private final long shortCircuited;
+        private final double averageLatencyMillis;
+
+        private ShopMetrics(CircuitState state, int limit, int inFlight, long calls, long failures, long rejected,
+                            long shortCircuited, double averageLatencyMillis) {
+            this.state = state;
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.calls = calls;
+            this.failures = failures;
+            this.rejected = rejected;
+            this.shortCircuited = shortCircuited;
+            this.averageLatencyMillis = averageLatencyMillis;
+        }
+
+        public CircuitState getState() {
+            return state;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getShortCircuited() {
+            return shortCircuited;
+        }
+
+        public double getAverageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s limit=%d inFlight=%d calls=%d failures=%d rejected=%d shortCircuited=%d "
+                            + "latency=%.1fms", state, limit, inFlight, calls, failures, rejected, shortCircuited,
+                    averageLatencyMillis);
+        }
+    }
+
+    // calls to a shop take seconds, a monitor per shop costs nothing in comparison
+    private final class Shop {
+        private final boolean[] window = new boolean[windowSize];
+        private int windowCalls;
+        private int windowFailures;
+        private int windowPosition;
+
+        private CircuitState state = CircuitState.CLOSED;
+        private long openedAt;
+        private boolean probing;
+        private double limit = minLimit;
+        private int inFlight;
+
+        private long calls;
+        private long failures;
+        private long rejected;
+        private long shortCircuited;
+        private long latencyNanos;
+
+        private synchronized int tryAcquire(long now) {
+            if (state == CircuitState.OPEN && now - openedAt >= openNanos) {
+                state = CircuitState.HALF_OPEN;
+            }
+            if (state == CircuitState.HALF_OPEN && !probing) {
+                probing = true;
+                inFlight++;
+                return PROBE;
+            }
+            if (state != CircuitState.CLOSED) {
+                shortCircuited++;
+                return REJECTED;
+            }
+            if (inFlight >= (int) limit) {
+                rejected++;
+                return REJECTED;
+            }
+            inFlight++;
+            return PERMITTED;
+        }
+
+        private synchronized void release(int permit, boolean success, long latency, long now) {
+            inFlight--;
+            calls++;
+            latencyNanos += latency;
+            boolean failed = !success || latency > slowCallNanos;
+            if (failed) {
+                failures++;
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+
+            if (permit == PROBE) {
+                probing = false;
+                if (failed) {
+                    open(now);
+                } else {
+                    state = CircuitState.CLOSED;
+                }
+            } else if (state == CircuitState.CLOSED && record(failed)) {
+                open(now);
+            }
+        }
+
+        private boolean record(boolean failed) {
+            if (windowCalls == windowSize) {
+                windowFailures -= window[windowPosition] ? 1 : 0;
+            } else {
+                windowCalls++;
+            }
+            window[windowPosition] = failed;
+            windowFailures += failed ? 1 : 0;
+            windowPosition = (windowPosition + 1) % windowSize;
+            return windowCalls == windowSize && windowFailures >= failureRateThreshold * windowSize;
+        }
+
+        private void open(long now) {
+            state = CircuitState.OPEN;
+            openedAt = now;
+            windowCalls = 0;
+            windowFailures = 0;
+            windowPosition = 0;
+        }
+
+        private synchronized ShopMetrics snapshot() {
+            return new ShopMetrics(state, (int) limit, inFlight, calls, failures, rejected, shortCircuited,
+                    calls == 0 ? 0 : latencyNanos / 1e6 / calls);
+        }
+    }
+}
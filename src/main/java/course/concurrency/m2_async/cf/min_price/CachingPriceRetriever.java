@@ -0,0 +1,215 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class CachingPriceRetriever extends PriceRetriever {
+
+    private static final int SEGMENTS = 16;
+
+    private final PriceRetriever priceRetriever;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingPriceRetriever(PriceRetriever priceRetriever, long ttl, TimeUnit unit, int maximumSize) {
+        this(priceRetriever, ttl, unit, maximumSize, System::nanoTime);
+    }
+
+    public CachingPriceRetriever(PriceRetriever priceRetriever, long ttl, TimeUnit unit, int maximumSize,
+                                 LongSupplier clock) {
+        if (ttl <= 0 || maximumSize < SEGMENTS) {
+            throw new IllegalArgumentException();
+        }
+        this.priceRetriever = priceRetriever;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maximumSize / SEGMENTS);
+        }
+    }
+
+    @Override
+    public double getPrice(long itemId, long shopId) {
+        try {
+            return getPriceAsync(itemId, shopId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // concurrent misses of one key share a single in-flight future
+    public CompletableFuture<Double> getPriceAsync(long itemId, long shopId) {
+        Key key = new Key(itemId, shopId);
+        Segment segment = segments[key.hashCode() & (SEGMENTS - 1)];
+        Entry entry = segment.get(key, clock.getAsLong());
+        if (entry != null) {
+            if (entry.price.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+            }
+            return entry.price;
+        }
+        Entry loading = new Entry();
+        entry = segment.putIfAbsent(key, loading);
+        if (entry != null) {
+            coalesced.increment();
+            return entry.price;
+        }
+        misses.increment();
+        try {
+            double price = priceRetriever.getPrice(itemId, shopId);
+            loading.expiresAt = clock.getAsLong() + ttlNanos;
+            loading.price.complete(price);
+        } catch (RuntimeException e) {
+            // failures are not cached
+            segment.remove(key, loading);
+            loading.price.completeExceptionally(e);
+        }
+        return loading.price;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    // segmented LRU: new entries go to probation, a second hit promotes them to the protected part
+    private final class Segment {
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<Key, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Key, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(1, capacity * 4 / 5);
+        }
+
+        synchronized Entry get(Key key, long now) {
+            Entry entry = protectedEntries.get(key);
+            if (entry != null) {
+                return expire(key, entry, now, protectedEntries);
+            }
+            entry = probation.get(key);
+            if (entry == null || expire(key, entry, now, probation) == null) {
+                return null;
+            }
+            probation.remove(key);
+            protectedEntries.put(key, entry);
+            if (protectedEntries.size() > protectedCapacity) {
+                Map.Entry<Key, Entry> eldest = removeEldest(protectedEntries);
+                probation.put(eldest.getKey(), eldest.getValue());
+            }
+            return entry;
+        }
+
+        synchronized Entry putIfAbsent(Key key, Entry entry) {
+            Entry existing = protectedEntries.get(key);
+            if (existing == null) {
+                existing = probation.get(key);
+            }
+            if (existing != null) {
+                return existing;
+            }
+            probation.put(key, entry);
+            if (probation.size() + protectedEntries.size() > capacity) {
+                removeEldest(probation.size() > 1 ? probation : protectedEntries);
+                evictions.increment();
+            }
+            return null;
+        }
+
+        synchronized void remove(Key key, Entry entry) {
+            if (!probation.remove(key, entry)) {
+                protectedEntries.remove(key, entry);
+            }
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedEntries.size();
+        }
+
+        private Entry expire(Key key, Entry entry, long now, Map<Key, Entry> owner) {
+            if (entry.price.isDone() && entry.expiresAt - now <= 0) {
+                owner.remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        private Map.Entry<Key, Entry> removeEldest(LinkedHashMap<Key, Entry> map) {
+            Iterator<Map.Entry<Key, Entry>> iterator = map.entrySet().iterator();
+            Map.Entry<Key, Entry> eldest = iterator.next();
+            iterator.remove();
+            return eldest;
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Double> price = new CompletableFuture<>();
+        private volatile long expiresAt;
+    }
+
+    private static final class Key {
+        private final long itemId;
+        private final long shopId;
+
+        private Key(long itemId, long shopId) {
+            this.itemId = itemId;
+            this.shopId = shopId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return itemId == key.itemId && shopId == key.shopId;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = (itemId * 31 + shopId) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
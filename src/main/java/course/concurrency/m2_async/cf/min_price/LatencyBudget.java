@@ -0,0 +1,46 @@
+package course.concurrency.m2_async.cf.min_price;
+
+public class LatencyBudget {
+
+    private final long deadlineMillis;
+    private final int quorum;
+    private final double hedgePercentile;
+    private final long initialHedgeDelayMillis;
+
+    /**
+     * @param deadlineMillis          answer with the best price known at this point at the latest
+     * @param quorum                  answer as soon as this many shops have returned a price
+     * @param hedgePercentile         duplicate a request still running after this latency percentile
+     *                                of recent lookups, 0 disables hedging
+     * @param initialHedgeDelayMillis hedge delay used until enough latencies have been observed
+     */
+    public LatencyBudget(long deadlineMillis, int quorum, double hedgePercentile, long initialHedgeDelayMillis) {
+        if (deadlineMillis <= 0 || quorum <= 0 || hedgePercentile < 0 || hedgePercentile > 1) {
+            throw new IllegalArgumentException();
+        }
+        this.deadlineMillis = deadlineMillis;
+        this.quorum = quorum;
+        this.hedgePercentile = hedgePercentile;
+        this.initialHedgeDelayMillis = initialHedgeDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public long getInitialHedgeDelayMillis() {
+        return initialHedgeDelayMillis;
+    }
+
+    public boolean isHedging() {
+        return hedgePercentile > 0;
+    }
+}
@@ -0,0 +1,33 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class LatencyWindow {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+
+    LatencyWindow(int size) {
+        this.samples = new AtomicLongArray(size);
+    }
+
+    void record(long latencyNanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), latencyNanos);
+    }
+
+    // NaN until the window has been filled once
+    double percentile(double percentile) {
+        if (count.get() < samples.length()) {
+            return Double.NaN;
+        }
+        long[] sorted = new long[samples.length()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,151 @@
+package course.concurrency.m2_async.cf.min_price;
+
+import org.junit.platform.commons.logging.Logger;
+import org.junit.platform.commons.logging.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// every subscriber gets its own lookup, emissions are conflated to the best price not yet delivered
+class MinPricePublisher implements Flow.Publisher<PriceUpdate> {
+    private static final Logger LOG = LoggerFactory.getLogger(MinPricePublisher.class);
+
+    private final long itemId;
+    private final List<Long> shopIds;
+    private final AsyncPriceRetriever priceRetriever;
+    private final long deadlineMillis;
+
+    MinPricePublisher(long itemId, Collection<Long> shopIds, AsyncPriceRetriever priceRetriever,
+                      long deadlineMillis) {
+        this.itemId = itemId;
+        this.shopIds = new ArrayList<>(shopIds);
+        this.priceRetriever = priceRetriever;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PriceUpdate> subscriber) {
+        Lookup lookup = new Lookup(subscriber);
+        subscriber.onSubscribe(lookup);
+        lookup.start();
+    }
+
+    private final class Lookup implements Flow.Subscription {
+        private final Flow.Subscriber<? super PriceUpdate> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger answered = new AtomicInteger();
+        private final AtomicReference<PriceUpdate> pending = new AtomicReference<>();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        // accessed by the draining thread only
+        private double emitted = Double.POSITIVE_INFINITY;
+
+        private Lookup(Flow.Subscriber<? super PriceUpdate> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            if (shopIds.isEmpty()) {
+                finish();
+                return;
+            }
+            CompletableFuture.delayedExecutor(deadlineMillis, TimeUnit.MILLISECONDS).execute(this::finish);
+            for (Long shopId : shopIds) {
+                CompletableFuture<Double> price;
+                try {
+                    price = priceRetriever.getPriceAsync(itemId, shopId);
+                } catch (RuntimeException e) {
+                    price = CompletableFuture.failedFuture(e);
+                }
+                price.whenComplete((value, ex) -> {
+                    if (ex != null) {
+                        LOG.error(ex, () -> "Что-то пошло не так ...");
+                    }
+                    answer(shopId, ex == null ? value : null);
+                });
+            }
+        }
+
+        private void answer(long shopId, Double price) {
+            if (done || cancelled) {
+                return;
+            }
+            int answers = answered.incrementAndGet();
+            if (price != null && !Double.isNaN(price)) {
+                PriceUpdate update = new PriceUpdate(itemId, shopId, price, answers, shopIds.size());
+                pending.accumulateAndGet(update, (current, next) ->
+                        current == null || next.getPrice() < current.getPrice() ? next : current);
+            }
+            if (answers == shopIds.size()) {
+                finish();
+            } else {
+                drain();
+            }
+        }
+
+        private void finish() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        // signals are serialized by whichever thread wins the wip counter
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    return;
+                }
+                if (error != null) {
+                    cancelled = true;
+                    subscriber.onError(error);
+                    return;
+                }
+                boolean finished = done;
+                PriceUpdate update = pending.get();
+                if (update != null && update.getPrice() >= emitted) {
+                    pending.compareAndSet(update, null);
+                } else if (update != null && requested.get() > 0 && pending.compareAndSet(update, null)) {
+                    emitted = update.getPrice();
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    subscriber.onNext(update);
+                    continue;
+                }
+                if (finished && pending.get() == null) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
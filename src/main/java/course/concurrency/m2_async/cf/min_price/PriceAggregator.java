@@ -1,11 +1,24 @@
 package course.concurrency.m2_async.cf.min_price;
 
+import course.concurrency.m2_async.executors.BlockingExecutors;
+import course.concurrency.m2_async.executors.ExecutionMode;
+import course.concurrency.m2_async.metrics.LatencyHistogram;
+import course.concurrency.m2_async.metrics.LatencySnapshot;
 import org.junit.platform.commons.logging.Logger;
 import org.junit.platform.commons.logging.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAccumulator;
 import java.util.stream.Collectors;
 
 import static java.lang.Double.NaN;
@@ -14,22 +27,209 @@ public class PriceAggregator {
     private static final Logger LOG = LoggerFactory.getLogger(PriceAggregator.class);
 
     private PriceRetriever priceRetriever = new PriceRetriever();
+    private AsyncPriceRetriever asyncPriceRetriever;
+    private AsyncPriceRetriever blockingAdapter;
+    private BatchPriceRetriever batchPriceRetriever;
+    private int batchSize = 100;
+    private int batchParallelism = 32;
+    private int blockingConcurrency = 100;
+    private int blockingQueued = 1000;
     private Collection<Long> shopIds = Set.of(10L, 45L, 66L, 345L, 234L, 333L, 67L, 123L, 768L);
-    private final ExecutorService executor =
-            new ThreadPoolExecutor(0, 100, 60L, TimeUnit.SECONDS, new SynchronousQueue<>());
+    private final ExecutorService executor;
+    private final LatencyWindow latencies = new LatencyWindow(256);
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram aggregateLatency = new LatencyHistogram();
+    private volatile LatencyBudget latencyBudget;
+    private volatile ScheduledExecutorService hedgeScheduler;
+
+    public PriceAggregator() {
+        this(ExecutionMode.PLATFORM);
+    }
+
+    public PriceAggregator(ExecutionMode mode) {
+        this.executor = BlockingExecutors.create(mode,
+                () -> new ThreadPoolExecutor(0, 100, 60L, TimeUnit.SECONDS, new SynchronousQueue<>()));
+        this.blockingAdapter = adapt(priceRetriever);
+    }
 
     public void setPriceRetriever(PriceRetriever priceRetriever) {
         this.priceRetriever = priceRetriever;
+        this.blockingAdapter = adapt(priceRetriever);
+    }
+
+    // takes precedence over the blocking PriceRetriever in getMinPriceAsync, getMinPriceUpdates and getMinPrice
+    // without a latency budget; hedged lookups under a budget and batched getMinPrices keep using the blocking ones
+    public void setAsyncPriceRetriever(AsyncPriceRetriever asyncPriceRetriever) {
+        this.asyncPriceRetriever = asyncPriceRetriever;
+    }
+
+    /**
+     * Limits of the adapter that serves the blocking PriceRetriever asynchronously: lookups beyond
+     * maxConcurrency running and maxQueued waiting fail at once with RejectedExecutionException.
+     */
+    public void setBlockingLimits(int maxConcurrency, int maxQueued) {
+        if (maxConcurrency <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.blockingConcurrency = maxConcurrency;
+        this.blockingQueued = maxQueued;
+        this.blockingAdapter = adapt(priceRetriever);
     }
 
     public void setShops(Collection<Long> shopIds) {
         this.shopIds = shopIds;
     }
 
+    public void setBatchPriceRetriever(BatchPriceRetriever batchPriceRetriever) {
+        this.batchPriceRetriever = batchPriceRetriever;
+    }
+
+    public void setBatching(int batchSize, int batchParallelism) {
+        if (batchSize <= 0 || batchParallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.batchSize = batchSize;
+        this.batchParallelism = batchParallelism;
+    }
+
+    public synchronized void setLatencyBudget(LatencyBudget latencyBudget) {
+        if (hedgeScheduler == null && latencyBudget != null && latencyBudget.isHedging()) {
+            hedgeScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "price-hedger");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.latencyBudget = latencyBudget;
+    }
+
+    // single shop lookups, including time spent queued for a thread
+    public LatencySnapshot getLookupLatency() {
+        return lookupLatency.snapshot();
+    }
+
+    public LatencySnapshot getAggregateLatency() {
+        return aggregateLatency.snapshot();
+    }
+
     public double getMinPrice(long itemId) {
+        LatencyBudget budget = latencyBudget;
+        if (budget == null && asyncPriceRetriever != null) {
+            return getMinPriceAsync(itemId).join();
+        }
+        long start = System.nanoTime();
+        try {
+            return budget != null ? getMinPrice(itemId, budget) : getMinPriceFromAllShops(itemId);
+        } finally {
+            aggregateLatency.recordSince(start);
+        }
+    }
+
+    // no thread is held while waiting, the blocking retriever only gets as many threads as the executor has
+    public CompletableFuture<Double> getMinPriceAsync(long itemId) {
+        AsyncPriceRetriever retriever = asyncPriceRetriever != null ? asyncPriceRetriever : blockingAdapter;
+        long start = System.nanoTime();
+        ItemPrice price = new ItemPrice(shopIds.size());
+        price.min.whenComplete((min, ex) -> aggregateLatency.recordSince(start));
+        for (Long shopId : shopIds) {
+            CompletableFuture<Double> shopPrice;
+            try {
+                shopPrice = retriever.getPriceAsync(itemId, shopId);
+            } catch (RuntimeException e) {
+                shopPrice = CompletableFuture.failedFuture(e);
+            }
+            // the adapter's future is ours, timing it out skips the lookup if it is still queued;
+            // the copy keeps the timeout from completing a future an async retriever may share with other callers
+            (retriever == blockingAdapter ? shopPrice : shopPrice.copy())
+                    .completeOnTimeout(NaN, 2800, TimeUnit.MILLISECONDS)
+                    .exceptionally(ex -> {
+                        LOG.error(ex, () -> "Что-то пошло не так ...");
+                        return NaN;
+                    })
+                    .thenAccept(shop -> {
+                        lookupLatency.recordSince(start);
+                        price.answer(shop);
+                    });
+        }
+        return price.min;
+    }
+
+    public Flow.Publisher<PriceUpdate> getMinPriceUpdates(long itemId) {
+        return getMinPriceUpdates(itemId, 2800);
+    }
+
+    // each subscriber receives a strictly decreasing price as shops answer, completion comes at the deadline
+    // or when every shop has answered, whichever is first
+    public Flow.Publisher<PriceUpdate> getMinPriceUpdates(long itemId, long deadlineMillis) {
+        if (deadlineMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        AsyncPriceRetriever retriever = asyncPriceRetriever != null ? asyncPriceRetriever : blockingAdapter;
+        return new MinPricePublisher(itemId, shopIds, retriever, deadlineMillis);
+    }
+
+    /**
+     * Items are grouped into one batch per shop and chunk of batchSize items, at most batchParallelism
+     * batches are in flight. The future of an item completes as soon as every shop answered for it.
+     */
+    public Map<Long, CompletableFuture<Double>> getMinPrices(Collection<Long> itemIds) {
+        BatchPriceRetriever retriever = batchPriceRetriever != null
+                ? batchPriceRetriever
+                : BatchPriceRetriever.perItem(priceRetriever);
+        Map<Long, ItemPrice> prices = new LinkedHashMap<>();
+        for (Long itemId : new LinkedHashSet<>(itemIds)) {
+            prices.put(itemId, new ItemPrice(shopIds.size()));
+        }
+        List<Long> items = new ArrayList<>(prices.keySet());
+        Queue<Batch> batches = new ConcurrentLinkedQueue<>();
+        // all shops of a chunk are queued together, so the items of the first chunks become final first
+        for (int from = 0; from < items.size(); from += batchSize) {
+            List<Long> chunk = items.subList(from, Math.min(items.size(), from + batchSize));
+            for (Long shopId : shopIds) {
+                batches.add(new Batch(shopId, chunk, prices));
+            }
+        }
+        for (int lane = 0; lane < batchParallelism; lane++) {
+            requestNext(batches, retriever);
+        }
+
+        Map<Long, CompletableFuture<Double>> result = new LinkedHashMap<>();
+        prices.forEach((itemId, price) -> result.put(itemId, price.min));
+        return result;
+    }
+
+    private void requestNext(Queue<Batch> batches, BatchPriceRetriever retriever) {
+        Batch batch;
+        while ((batch = batches.poll()) != null) {
+            Batch current = batch;
+            try {
+                CompletableFuture<Map<Long, Double>> request = CompletableFuture
+                        .supplyAsync(() -> retriever.getPrices(current.shopId, current.itemIds), executor);
+                request.copy()
+                        .completeOnTimeout(Map.of(), 2800, TimeUnit.MILLISECONDS)
+                        .exceptionally(ex -> {
+                            LOG.error(ex, () -> "Что-то пошло не так ...");
+                            return Map.of();
+                        })
+                        .thenAccept(current::complete);
+                // a timed out request still holds its thread, the lane is free only once it returns
+                request.whenComplete((ignored, ex) -> requestNext(batches, retriever));
+                return;
+            } catch (RejectedExecutionException e) {
+                LOG.error(e, () -> "Что-то пошло не так ...");
+                current.complete(Map.of());
+            }
+        }
+    }
+
+    private AsyncPriceRetriever adapt(PriceRetriever priceRetriever) {
+        return new BlockingPriceRetrieverAdapter(priceRetriever, executor, blockingConcurrency, blockingQueued);
+    }
+
+    private double getMinPriceFromAllShops(long itemId) {
         return shopIds.stream()
                 .map(shopId -> CompletableFuture
-                        .supplyAsync(() -> priceRetriever.getPrice(itemId, shopId), executor)
+                        .supplyAsync(() -> lookup(itemId, shopId), executor)
                         .completeOnTimeout(NaN, 2800, TimeUnit.MILLISECONDS)
                         .exceptionally(ex -> {
                             LOG.error(ex, () -> "Что-то пошло не так ...");
@@ -42,4 +242,149 @@ public class PriceAggregator {
                 .min()
                 .orElse(NaN);
     }
+
+    private double lookup(long itemId, long shopId) {
+        long start = System.nanoTime();
+        try {
+            return priceRetriever.getPrice(itemId, shopId);
+        } finally {
+            lookupLatency.recordSince(start);
+        }
+    }
+
+    private double getMinPrice(long itemId, LatencyBudget budget) {
+        Lookup lookup = new Lookup(shopIds.size(), budget.getQuorum());
+        long hedgeDelay = hedgeDelayNanos(budget);
+        for (Long shopId : shopIds) {
+            AtomicBoolean settled = new AtomicBoolean();
+            request(lookup, itemId, shopId, settled);
+            if (budget.isHedging()) {
+                lookup.pending.add(hedgeScheduler.schedule(() -> {
+                    if (!settled.get() && !lookup.done.isDone()) {
+                        request(lookup, itemId, shopId, settled);
+                    }
+                }, hedgeDelay, TimeUnit.NANOSECONDS));
+            }
+        }
+        try {
+            lookup.done.get(budget.getDeadlineMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lookup.done.complete(null);
+        // frees the executor threads still blocked on slow shops
+        lookup.pending.forEach(future -> future.cancel(true));
+        double min = lookup.min.get();
+        return min == Double.POSITIVE_INFINITY ? NaN : min;
+    }
+
+    // the first answer or failure of a shop settles it, later hedged duplicates are ignored
+    private void request(Lookup lookup, long itemId, long shopId, AtomicBoolean settled) {
+        try {
+            lookup.pending.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    double price = lookup(itemId, shopId);
+                    if (settled.compareAndSet(false, true)) {
+                        // hedge losers and cancelled lookups would skew the percentile
+                        if (!Thread.currentThread().isInterrupted()) {
+                            latencies.record(System.nanoTime() - start);
+                        }
+                        lookup.answer(price);
+                    }
+                } catch (RuntimeException e) {
+                    if (settled.compareAndSet(false, true)) {
+                        LOG.error(e, () -> "Что-то пошло не так ...");
+                        lookup.settle();
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            LOG.error(e, () -> "Что-то пошло не так ...");
+        }
+    }
+
+    private long hedgeDelayNanos(LatencyBudget budget) {
+        double percentile = latencies.percentile(budget.getHedgePercentile());
+        return Double.isNaN(percentile)
+                ? TimeUnit.MILLISECONDS.toNanos(budget.getInitialHedgeDelayMillis())
+                : (long) percentile;
+    }
+
+    private static final class Lookup {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        private final Queue<Future<?>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger answers = new AtomicInteger();
+        private final AtomicInteger settled = new AtomicInteger();
+        private final int shops;
+        private final int quorum;
+
+        private Lookup(int shops, int quorum) {
+            this.shops = shops;
+            this.quorum = Math.min(shops, quorum);
+            if (shops == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void answer(double price) {
+            if (!Double.isNaN(price)) {
+                min.accumulate(price);
+            }
+            if (answers.incrementAndGet() >= quorum) {
+                done.complete(null);
+            }
+            settle();
+        }
+
+        private void settle() {
+            if (settled.incrementAndGet() == shops) {
+                done.complete(null);
+            }
+        }
+    }
+
+    private static final class Batch {
+        private final long shopId;
+        private final List<Long> itemIds;
+        private final Map<Long, ItemPrice> prices;
+
+        private Batch(long shopId, List<Long> itemIds, Map<Long, ItemPrice> prices) {
+            this.shopId = shopId;
+            this.itemIds = itemIds;
+            this.prices = prices;
+        }
+
+        private void complete(Map<Long, Double> answer) {
+            for (Long itemId : itemIds) {
+                prices.get(itemId).answer(answer.get(itemId));
+            }
+        }
+    }
+
+    private static final class ItemPrice {
+        private final CompletableFuture<Double> min = new CompletableFuture<>();
+        private final DoubleAccumulator best = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        private final AtomicInteger remaining;
+
+        private ItemPrice(int shops) {
+            this.remaining = new AtomicInteger(shops);
+            if (shops == 0) {
+                min.complete(NaN);
+            }
+        }
+
+        private void answer(Double price) {
+            if (price != null && !Double.isNaN(price)) {
+                best.accumulate(price);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                double value = best.get();
+                min.complete(value == Double.POSITIVE_INFINITY ? NaN : value);
+            }
+        }
+    }
 }
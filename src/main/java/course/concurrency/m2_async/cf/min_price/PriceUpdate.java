@@ -0,0 +1,44 @@
+package course.concurrency.m2_async.cf.min_price;
+
+public class PriceUpdate {
+
+    private final long itemId;
+    private final long shopId;
+    private final double price;
+    private final int answeredShops;
+    private final int totalShops;
+
+    public PriceUpdate(long itemId, long shopId, double price, int answeredShops, int totalShops) {
+        this.itemId = itemId;
+        this.shopId = shopId;
+        this.price = price;
+        this.answeredShops = answeredShops;
+        this.totalShops = totalShops;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public long getShopId() {
+        return shopId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getAnsweredShops() {
+        return answeredShops;
+    }
+
+    public int getTotalShops() {
+        return totalShops;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceUpdate{itemId=" + itemId + ", shopId=" + shopId + ", price=" + price
+                + ", answered=" + answeredShops + "/" + totalShops + "}";
+    }
+}
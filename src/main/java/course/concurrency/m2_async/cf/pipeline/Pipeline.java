@@ -0,0 +1,77 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable graph of stages. A stage may only depend on stages declared before it,
+ * so every pipeline is acyclic and the declaration order is a topological order.
+ */
+public class Pipeline {
+
+    private final List<Stage<?>> stages;
+
+    private Pipeline(List<Stage<?>> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<Stage<?>> getStages() {
+        return stages;
+    }
+
+    // each stage starts on the executor as soon as its last dependency completes
+    public CompletableFuture<PipelineResult> run(Executor executor) {
+        long start = System.nanoTime();
+        PipelineResult result = new PipelineResult(this, start);
+        List<CompletableFuture<Void>> completions = new ArrayList<>(stages.size());
+        for (Stage<?> stage : stages) {
+            CompletableFuture<Void> completion;
+            if (stage.getDependencies().isEmpty()) {
+                completion = CompletableFuture.runAsync(() -> result.execute(stage), executor);
+            } else {
+                CompletableFuture<?>[] dependencies = stage.getDependencies().stream()
+                        .map(dependency -> completions.get(dependency.getIndex()))
+                        .toArray(CompletableFuture[]::new);
+                completion = CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> result.execute(stage), executor);
+            }
+            completions.add(completion);
+        }
+        return CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> result.complete());
+    }
+
+    public static class Builder {
+        private final List<Stage<?>> stages = new ArrayList<>();
+        private final Set<String> names = new HashSet<>();
+
+        public <T> Stage<T> stage(String name, StageFunction<T> function, Stage<?>... dependencies) {
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Duplicate stage " + name);
+            }
+            List<Stage<?>> inputs = new ArrayList<>();
+            Collections.addAll(inputs, dependencies);
+            for (Stage<?> dependency : inputs) {
+                if (dependency.getIndex() >= stages.size() || stages.get(dependency.getIndex()) != dependency) {
+                    throw new IllegalArgumentException("Unknown dependency " + dependency.getName() + " of " + name);
+                }
+            }
+            Stage<T> stage = new Stage<>(stages.size(), name, function, inputs);
+            stages.add(stage);
+            return stage;
+        }
+
+        public Pipeline build() {
+            return new Pipeline(stages);
+        }
+    }
+}
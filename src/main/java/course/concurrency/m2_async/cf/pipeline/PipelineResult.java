@@ -0,0 +1,111 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+public class PipelineResult {
+
+    private final Pipeline pipeline;
+    private final long startNanos;
+    private final AtomicReferenceArray<Object> values;
+    private final AtomicReferenceArray<StageTiming> timings;
+    private volatile long durationNanos;
+    private volatile List<StageTiming> criticalPath;
+
+    PipelineResult(Pipeline pipeline, long startNanos) {
+        this.pipeline = pipeline;
+        this.startNanos = startNanos;
+        this.values = new AtomicReferenceArray<>(pipeline.getStages().size());
+        this.timings = new AtomicReferenceArray<>(pipeline.getStages().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Stage<T> stage) {
+        return (T) values.get(indexOf(stage));
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public List<StageTiming> getTimings() {
+        List<StageTiming> result = new ArrayList<>(timings.length());
+        for (int i = 0; i < timings.length(); i++) {
+            result.add(timings.get(i));
+        }
+        return result;
+    }
+
+    // the chain of stages that determined the duration of the run, from the first stage to the last one
+    public List<StageTiming> getCriticalPath() {
+        return criticalPath;
+    }
+
+    @Override
+    public String toString() {
+        return criticalPath.stream().map(StageTiming::toString).collect(Collectors.joining(" -> "))
+                + " = " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms";
+    }
+
+    <T> void execute(Stage<T> stage) {
+        long start = System.nanoTime();
+        T value = stage.getFunction().apply(new StageInputs() {
+            @Override
+            public <D> D get(Stage<D> dependency) {
+                if (!stage.getDependencies().contains(dependency)) {
+                    throw new IllegalArgumentException(dependency.getName() + " is not an input of " + stage.getName());
+                }
+                return PipelineResult.this.get(dependency);
+            }
+        });
+        long end = System.nanoTime();
+        values.set(stage.getIndex(), value);
+        timings.set(stage.getIndex(), new StageTiming(stage.getName(), start - startNanos, end - start));
+    }
+
+    PipelineResult complete() {
+        durationNanos = System.nanoTime() - startNanos;
+        criticalPath = findCriticalPath();
+        return this;
+    }
+
+    // walk back from the stage that finished last, always through the dependency that finished last
+    private List<StageTiming> findCriticalPath() {
+        List<Stage<?>> stages = pipeline.getStages();
+        List<StageTiming> path = new ArrayList<>();
+        Stage<?> current = null;
+        for (Stage<?> stage : stages) {
+            if (current == null || endOf(stage) > endOf(current)) {
+                current = stage;
+            }
+        }
+        while (current != null) {
+            path.add(timings.get(current.getIndex()));
+            Stage<?> latest = null;
+            for (Stage<?> dependency : current.getDependencies()) {
+                if (latest == null || endOf(dependency) > endOf(latest)) {
+                    latest = dependency;
+                }
+            }
+            current = latest;
+        }
+        Collections.reverse(path);
+        return List.copyOf(path);
+    }
+
+    private long endOf(Stage<?> stage) {
+        return timings.get(stage.getIndex()).getEndNanos();
+    }
+
+    private int indexOf(Stage<?> stage) {
+        List<Stage<?>> stages = pipeline.getStages();
+        if (stage.getIndex() >= stages.size() || stages.get(stage.getIndex()) != stage) {
+            throw new IllegalArgumentException("Unknown stage " + stage.getName());
+        }
+        return stage.getIndex();
+    }
+}
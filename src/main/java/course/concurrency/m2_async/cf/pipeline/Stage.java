@@ -0,0 +1,39 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import java.util.List;
+
+public final class Stage<T> {
+
+    private final int index;
+    private final String name;
+    private final StageFunction<T> function;
+    private final List<Stage<?>> dependencies;
+
+    Stage(int index, String name, StageFunction<T> function, List<Stage<?>> dependencies) {
+        this.index = index;
+        this.name = name;
+        this.function = function;
+        this.dependencies = List.copyOf(dependencies);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Stage<?>> getDependencies() {
+        return dependencies;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    StageFunction<T> getFunction() {
+        return function;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,6 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+public interface StageFunction<T> {
+
+    T apply(StageInputs inputs);
+}
@@ -0,0 +1,7 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+public interface StageInputs {
+
+    // only results of declared dependencies are visible to a stage
+    <T> T get(Stage<T> dependency);
+}
@@ -0,0 +1,38 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+public class StageTiming {
+
+    private final String name;
+    private final long startNanos;
+    private final long durationNanos;
+
+    StageTiming(String name, long startNanos, long durationNanos) {
+        this.name = name;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // relative to the start of the run
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getEndNanos() {
+        return startNanos + durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms)";
+    }
+}
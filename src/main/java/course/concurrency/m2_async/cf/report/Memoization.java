@@ -0,0 +1,10 @@
+package course.concurrency.m2_async.cf.report;
+
+public enum Memoization {
+    // every report is computed from scratch
+    OFF,
+    // stages are recomputed only when the version of their inputs changed
+    VERSIONED,
+    // like VERSIONED, but an outdated report is returned at once while a single refresh runs in the background
+    STALE_WHILE_REVALIDATE
+}
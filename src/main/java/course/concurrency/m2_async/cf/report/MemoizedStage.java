@@ -0,0 +1,123 @@
+package course.concurrency.m2_async.cf.report;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the result of a stage together with the version of its inputs. Versions only grow, so a value
+ * computed for an older version is never published over a newer one, and callers that find the same
+ * outdated version share one computation.
+ */
+public class MemoizedStage<T> {
+
+    private final Supplier<T> stage;
+    private final LongSupplier version;
+    private final Executor refreshExecutor;
+    private final boolean staleWhileRevalidate;
+    private final AtomicReference<Entry<T>> entry = new AtomicReference<>();
+    private final AtomicReference<Refresh<T>> refreshing = new AtomicReference<>();
+    private final LongAdder computations = new LongAdder();
+
+    public MemoizedStage(Supplier<T> stage, LongSupplier version) {
+        this(stage, version, Runnable::run, false);
+    }
+
+    public MemoizedStage(Supplier<T> stage, LongSupplier version, Executor refreshExecutor,
+                         boolean staleWhileRevalidate) {
+        this.stage = stage;
+        this.version = version;
+        this.refreshExecutor = refreshExecutor;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public T get() {
+        long current = version.getAsLong();
+        Entry<T> cached = entry.get();
+        if (cached != null && cached.version >= current) {
+            return cached.value;
+        }
+        if (cached != null && staleWhileRevalidate) {
+            refresh(current, true);
+            return cached.value;
+        }
+        try {
+            return refresh(current, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long getComputations() {
+        return computations.sum();
+    }
+
+    private CompletableFuture<T> refresh(long current, boolean background) {
+        while (true) {
+            Refresh<T> running = refreshing.get();
+            if (running != null && running.version >= current) {
+                return running.value;
+            }
+            Refresh<T> next = new Refresh<>(current);
+            if (refreshing.compareAndSet(running, next)) {
+                // another refresh may have published this version between our read and the CAS
+                Entry<T> cached = entry.get();
+                if (cached != null && cached.version >= current) {
+                    refreshing.compareAndSet(next, null);
+                    next.value.complete(cached.value);
+                } else if (background) {
+                    try {
+                        refreshExecutor.execute(() -> compute(next));
+                    } catch (RuntimeException e) {
+                        refreshing.compareAndSet(next, null);
+                        next.value.completeExceptionally(e);
+                    }
+                } else {
+                    compute(next);
+                }
+                return next.value;
+            }
+        }
+    }
+
+    private void compute(Refresh<T> refresh) {
+        computations.increment();
+        try {
+            T value = stage.get();
+            Entry<T> computed = new Entry<>(value, refresh.version);
+            entry.accumulateAndGet(computed, (cached, next) ->
+                    cached == null || cached.version < next.version ? next : cached);
+            refresh.value.complete(value);
+        } catch (Throwable e) {
+            refresh.value.completeExceptionally(e);
+        } finally {
+            refreshing.compareAndSet(refresh, null);
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long version;
+
+        private Entry(T value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    private static final class Refresh<T> {
+        private final long version;
+        private final CompletableFuture<T> value = new CompletableFuture<>();
+
+        private Refresh(long version) {
+            this.version = version;
+        }
+    }
+}
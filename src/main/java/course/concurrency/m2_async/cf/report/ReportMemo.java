@@ -0,0 +1,67 @@
+package course.concurrency.m2_async.cf.report;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// memoized stages shared by the report services, items and customers have their own data versions
+final class ReportMemo {
+
+    private final AtomicLong itemsVersion = new AtomicLong();
+    private final AtomicLong customersVersion = new AtomicLong();
+    private final Supplier<Collection<Others.Item>> items;
+    private final Supplier<Collection<Others.Customer>> customers;
+    private final Supplier<Others.Report> report;
+    private volatile Stages stages;
+
+    ReportMemo(Supplier<Collection<Others.Item>> items, Supplier<Collection<Others.Customer>> customers,
+               Supplier<Others.Report> report) {
+        this.items = items;
+        this.customers = customers;
+        this.report = report;
+    }
+
+    void setMemoization(Memoization memoization, Executor refreshExecutor) {
+        stages = memoization == Memoization.OFF
+                ? null
+                : new Stages(memoization == Memoization.STALE_WHILE_REVALIDATE, refreshExecutor);
+    }
+
+    void invalidateItems() {
+        itemsVersion.incrementAndGet();
+    }
+
+    void invalidateCustomers() {
+        customersVersion.incrementAndGet();
+    }
+
+    Collection<Others.Item> items() {
+        Stages current = stages;
+        return current == null ? items.get() : current.items.get();
+    }
+
+    Collection<Others.Customer> customers() {
+        Stages current = stages;
+        return current == null ? customers.get() : current.customers.get();
+    }
+
+    Others.Report report() {
+        Stages current = stages;
+        return current == null ? report.get() : current.report.get();
+    }
+
+    private final class Stages {
+        private final MemoizedStage<Collection<Others.Item>> items;
+        private final MemoizedStage<Collection<Others.Customer>> customers;
+        private final MemoizedStage<Others.Report> report;
+
+        private Stages(boolean staleWhileRevalidate, Executor refreshExecutor) {
+            this.items = new MemoizedStage<>(ReportMemo.this.items, itemsVersion::get);
+            this.customers = new MemoizedStage<>(ReportMemo.this.customers, customersVersion::get);
+            // both versions only grow, so their sum changes whenever one of them does
+            this.report = new MemoizedStage<>(ReportMemo.this.report,
+                    () -> itemsVersion.get() + customersVersion.get(), refreshExecutor, staleWhileRevalidate);
+        }
+    }
+}
@@ -1,32 +1,87 @@
 package course.concurrency.m2_async.cf.report;
 
 import course.concurrency.m2_async.cf.LoadGenerator;
+import course.concurrency.m2_async.cf.pipeline.Pipeline;
+import course.concurrency.m2_async.cf.pipeline.PipelineResult;
+import course.concurrency.m2_async.cf.pipeline.Stage;
+import course.concurrency.m2_async.executors.ComputeExecutor;
+import course.concurrency.m2_async.metrics.LatencyHistogram;
+import course.concurrency.m2_async.metrics.LatencyRegistry;
+import course.concurrency.m2_async.metrics.LatencySnapshot;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ForkJoinPool;
 
 public class ReportServiceCF {
-    private ExecutorService executor = ForkJoinPool.commonPool();
+    private final ExecutorService executor;
+    // an executor passed in by the caller is not shut down with the service
+    private final boolean ownsExecutor;
+    private final LatencyRegistry latencies = new LatencyRegistry();
+    private final LatencyHistogram reportLatency = latencies.histogram("report");
+
+    private final Pipeline pipeline;
+    private final Stage<Others.Report> report;
+    private volatile PipelineResult lastRun;
+    private final ReportMemo memo = new ReportMemo(this::getItems, this::getActiveCustomers, this::runPipeline);
+
+    public ReportServiceCF() {
+        this(new ComputeExecutor("report"), true);
+    }
+
+    public ReportServiceCF(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private ReportServiceCF(ExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<Collection<Others.Item>> items = builder.stage("items", inputs -> memo.items());
+        Stage<Collection<Others.Customer>> customers = builder.stage("customers", inputs -> memo.customers());
+        this.report = builder.stage("combine",
+                inputs -> combineResults(inputs.get(items), inputs.get(customers)), items, customers);
+        this.pipeline = builder.build();
+    }
 
     public Others.Report getReport() {
-        CompletableFuture<Collection<Others.Item>> itemsCF =
-                CompletableFuture.supplyAsync(() -> getItems(), executor);
+        return reportLatency.time(memo::report);
+    }
 
-        CompletableFuture<Collection<Others.Customer>> customersCF =
-                CompletableFuture.supplyAsync(() -> getActiveCustomers(), executor);
+    private Others.Report runPipeline() {
+        PipelineResult result = pipeline.run(executor).join();
+        result.getTimings().forEach(timing -> latencies.histogram(timing.getName()).record(timing.getDurationNanos()));
+        lastRun = result;
+        return result.get(report);
+    }
+
+    // stage timings and critical path of the most recent report
+    public PipelineResult getLastRun() {
+        return lastRun;
+    }
+
+    public void setMemoization(Memoization memoization) {
+        memo.setMemoization(memoization, executor);
+    }
+
+    // called when the underlying data changes, memoized stages are recomputed on the next report
+    public void invalidateItems() {
+        memo.invalidateItems();
+    }
 
-        CompletableFuture<Others.Report> reportTask =
-                customersCF.thenCombine(itemsCF,
-                        (customers, orders) -> combineResults(orders, customers));
+    public void invalidateCustomers() {
+        memo.invalidateCustomers();
+    }
 
-        return reportTask.join();
+    public Map<String, LatencySnapshot> getLatencies() {
+        return latencies.snapshot();
     }
 
     public void shutdown() {
-        executor.shutdown();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
     }
 
     private Others.Report combineResults(Collection<Others.Item> items, Collection<Others.Customer> customers) {
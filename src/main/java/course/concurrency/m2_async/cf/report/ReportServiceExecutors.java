@@ -1,9 +1,13 @@
 package course.concurrency.m2_async.cf.report;
 
 import course.concurrency.m2_async.cf.LoadGenerator;
+import course.concurrency.m2_async.metrics.LatencyHistogram;
+import course.concurrency.m2_async.metrics.LatencyRegistry;
+import course.concurrency.m2_async.metrics.LatencySnapshot;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -11,20 +15,48 @@ import java.util.concurrent.Future;
 
 public class ReportServiceExecutors {
     private final ExecutorService executor = Executors.newFixedThreadPool(12);
+    private final LatencyRegistry latencies = new LatencyRegistry();
+    private final LatencyHistogram reportLatency = latencies.histogram("report");
+    private final LatencyHistogram itemsLatency = latencies.histogram("items");
+    private final LatencyHistogram customersLatency = latencies.histogram("customers");
+    private final LatencyHistogram combineLatency = latencies.histogram("combine");
+    private final ReportMemo memo = new ReportMemo(this::getItems, this::getActiveCustomers, this::computeReport);
 
     public Others.Report getReport() {
-        Future<Collection<Others.Item>> iFuture = executor.submit(this::getItems);
-        Future<Collection<Others.Customer>> customersFuture = executor.submit(this::getActiveCustomers);
+        return reportLatency.time(memo::report);
+    }
+
+    private Others.Report computeReport() {
+        Future<Collection<Others.Item>> iFuture = executor.submit(() -> itemsLatency.time(memo::items));
+        Future<Collection<Others.Customer>> customersFuture =
+                executor.submit(() -> customersLatency.time(memo::customers));
         try {
             Collection<Others.Customer> customers = customersFuture.get();
             Collection<Others.Item> items = iFuture.get();
-            return combineResults(items, customers);
+            return combineLatency.time(() -> combineResults(items, customers));
         } catch (ExecutionException | InterruptedException ex) {
             ex.printStackTrace();
         }
         return new Others.Report();
     }
 
+    public void setMemoization(Memoization memoization) {
+        memo.setMemoization(memoization, executor);
+    }
+
+    // called when the underlying data changes, memoized stages are recomputed on the next report
+    public void invalidateItems() {
+        memo.invalidateItems();
+    }
+
+    public void invalidateCustomers() {
+        memo.invalidateCustomers();
+    }
+
+    public Map<String, LatencySnapshot> getLatencies() {
+        return latencies.snapshot();
+    }
+
     public void shutdown() {
         executor.shutdown();
     }
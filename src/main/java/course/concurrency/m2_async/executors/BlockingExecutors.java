@@ -0,0 +1,66 @@
+package course.concurrency.m2_async.executors;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+public class BlockingExecutors {
+
+    // looked up reflectively, so the code still compiles and runs on Java 11
+    private static final MethodHandle VIRTUAL_FACTORY = findVirtualFactory();
+
+    private BlockingExecutors() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    public static ExecutorService create(ExecutionMode mode, Supplier<ExecutorService> platformPool) {
+        switch (mode) {
+            case VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            case AUTO:
+                return isVirtualThreadSupported() ? newVirtualThreadPerTaskExecutor() : platformPool.get();
+            default:
+                return platformPool.get();
+        }
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (VIRTUAL_FACTORY == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        return invoke(VIRTUAL_FACTORY);
+    }
+
+    private static MethodHandle findVirtualFactory() {
+        MethodHandle factory;
+        try {
+            factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+        // preview builds have the method but refuse to create virtual threads
+        try {
+            invoke(factory).shutdown();
+            return factory;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService invoke(MethodHandle factory) {
+        try {
+            return (ExecutorService) factory.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package course.concurrency.m2_async.executors;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work-stealing pool for CPU-bound tasks, sized to the available cores and owned by whoever creates it,
+ * so unlike the common pool it can be shut down and does not compete with parallel streams.
+ */
+public class ComputeExecutor extends AbstractExecutorService implements AutoCloseable {
+
+    private final String name;
+    private final ForkJoinPool pool;
+    // slot numbers of live workers, reused when a worker retires
+    private final BitSet slots = new BitSet();
+
+    public ComputeExecutor(String name) {
+        this(name, defaultParallelism());
+    }
+
+    public ComputeExecutor(String name, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.name = name;
+        this.pool = new ForkJoinPool(parallelism, Worker::new, null, true);
+    }
+
+    public static int defaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Stable slot of the current worker between 0 and the parallelism while the pool is not compensating
+     * for blocked workers, -1 outside of compute workers. Use it to pick per-core shards instead of
+     * hashing thread ids.
+     */
+    public static int currentWorkerSlot() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof Worker ? ((Worker) thread).slot : -1;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    public long getQueuedTaskCount() {
+        return pool.getQueuedTaskCount();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        pool.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    // lets running tasks finish, interrupts them only if the caller is interrupted while waiting
+    @Override
+    public void close() {
+        shutdown();
+        boolean terminated = isTerminated();
+        try {
+            while (!terminated) {
+                terminated = awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + pool;
+    }
+
+    private int acquireSlot() {
+        synchronized (slots) {
+            int slot = slots.nextClearBit(0);
+            slots.set(slot);
+            return slot;
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        synchronized (slots) {
+            slots.clear(slot);
+        }
+    }
+
+    private final class Worker extends ForkJoinWorkerThread {
+        private final int slot;
+
+        private Worker(ForkJoinPool pool) {
+            super(pool);
+            this.slot = acquireSlot();
+            setName(name + "-" + slot);
+            setDaemon(true);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            releaseSlot(slot);
+            super.onTermination(exception);
+        }
+    }
+}
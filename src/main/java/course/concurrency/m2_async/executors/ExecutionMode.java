@@ -0,0 +1,10 @@
+package course.concurrency.m2_async.executors;
+
+public enum ExecutionMode {
+    // classic bounded pool of platform threads
+    PLATFORM,
+    // one virtual thread per task, fails if the JVM has no virtual threads
+    VIRTUAL,
+    // virtual threads when the JVM supports them, platform pool otherwise
+    AUTO
+}
@@ -0,0 +1,96 @@
+package course.concurrency.m2_async.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds with a relative error below 1/32.
+ * Threads record into a fixed number of striped counters picked by a hash of the thread id, so the memory
+ * does not grow with the number of threads that ever recorded; snapshots merge the stripes.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    static final int MAX_VALUE_BITS = 42;
+    static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    // a power of two of at least twice the cores, so that few threads share a stripe at the same time
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+
+    // allocated on first use, a histogram recorded by one thread keeps a single stripe
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        AtomicLongArray counts = stripe();
+        counts.getAndIncrement(bucket(value));
+        counts.getAndAdd(SUM, value);
+        if (value > counts.get(MAX)) {
+            counts.accumulateAndGet(MAX, value, Math::max);
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public <T> T time(Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] merged = new long[BUCKETS + 2];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            AtomicLongArray counts = stripes.get(stripe);
+            if (counts == null) {
+                continue;
+            }
+            for (int i = 0; i < MAX; i++) {
+                merged[i] += counts.get(i);
+            }
+            merged[MAX] = Math.max(merged[MAX], counts.get(MAX));
+        }
+        return new LatencySnapshot(merged);
+    }
+
+    static int bucket(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + sub - HALF_SUB_BUCKETS;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long sub = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // thread ids are sequential, the multiplication spreads neighbours over the stripes
+    private AtomicLongArray stripe() {
+        int index = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+        AtomicLongArray counts = stripes.get(index);
+        if (counts == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 2));
+            counts = stripes.get(index);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,76 @@
+package course.concurrency.m2_async.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencySnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    LatencySnapshot(long[] merged) {
+        this.counts = new long[LatencyHistogram.BUCKETS];
+        System.arraycopy(merged, 0, counts, 0, LatencyHistogram.BUCKETS);
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.count = total;
+        this.sum = merged[LatencyHistogram.BUCKETS];
+        this.max = merged[LatencyHistogram.BUCKETS + 1];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // the highest value of the bucket holding the percentile, so it is never understated
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException();
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    public long getP50Nanos() {
+        return getPercentileNanos(0.5);
+    }
+
+    public long getP99Nanos() {
+        return getPercentileNanos(0.99);
+    }
+
+    public long getP999Nanos() {
+        return getPercentileNanos(0.999);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms", count,
+                millis(getP50Nanos()), millis(getP99Nanos()), millis(getP999Nanos()), millis(max));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,79 @@
+package course.concurrency.m3_shared.benchmarks;
+
+import course.concurrency.m3_shared.collections.HeavyHitters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Heap retained after counting hits of 10M distinct names: the previous ConcurrentHashMap of LongAdders
+ * against the approximate statistics. The exact time-windowed counters keep rings of about 2.5 KB per name
+ * and do not fit the heap at this size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 0)
+@Measurement(iterations = 3)
+public class HeavyHittersMemoryBenchmarks {
+
+    @Param({"10000000"})
+    public int keys;
+
+    @Param({"legacy", "approximate"})
+    public String mode;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HeavyHittersMemoryBenchmarks.class.getName())
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedKilobytes;
+        public long bytesPerKey;
+    }
+
+    @Benchmark
+    public Object count(Footprint footprint) {
+        long before = usedHeap();
+        Object stat;
+        if ("legacy".equals(mode)) {
+            Map<String, LongAdder> legacy = new ConcurrentHashMap<>();
+            for (int i = 0; i < keys; i++) {
+                legacy.computeIfAbsent("restaurant-" + i, k -> new LongAdder()).increment();
+            }
+            stat = legacy;
+        } else {
+            HeavyHitters heavyHitters = new HeavyHitters(100);
+            for (int i = 0; i < keys; i++) {
+                heavyHitters.add("restaurant-" + i);
+            }
+            stat = heavyHitters;
+        }
+        long retained = usedHeap() - before;
+        footprint.retainedKilobytes = retained >> 10;
+        footprint.bytesPerKey = retained / keys;
+        return stat;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
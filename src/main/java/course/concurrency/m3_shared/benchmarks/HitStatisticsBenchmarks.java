@@ -0,0 +1,80 @@
+package course.concurrency.m3_shared.benchmarks;
+
+import course.concurrency.m3_shared.collections.HitStatistics;
+import course.concurrency.m3_shared.collections.RestaurantService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit counting of RestaurantService against the previous ConcurrentHashMap of LongAdders,
+ * run at 1, 8 and 32 threads by main.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HitStatisticsBenchmarks {
+
+    private static final String[] NAMES = {"A", "B", "C"};
+
+    private final Map<String, LongAdder> legacy = new ConcurrentHashMap<>();
+    private final HitStatistics statistics = new HitStatistics();
+    private RestaurantService service;
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(HitStatisticsBenchmarks.class.getName())
+                    .threads(threads)
+                    .forks(1)
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        service = new RestaurantService();
+        for (String name : NAMES) {
+            statistics.register(name);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        private String name() {
+            next = next == NAMES.length - 1 ? 0 : next + 1;
+            return NAMES[next];
+        }
+    }
+
+    @Benchmark
+    public void legacyStat(Cursor cursor) {
+        legacy.computeIfAbsent(cursor.name(), k -> new LongAdder()).increment();
+    }
+
+    @Benchmark
+    public void hitStatistics(Cursor cursor) {
+        statistics.increment(cursor.name());
+    }
+
+    @Benchmark
+    public Object getByName(Cursor cursor) {
+        return service.getByName(cursor.name());
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return statistics.snapshot();
+    }
+}
@@ -0,0 +1,71 @@
+package course.concurrency.m3_shared.benchmarks;
+
+import course.concurrency.m3_shared.immutable.Item;
+import course.concurrency.m3_shared.immutable.JournaledOrderStore;
+import course.concurrency.m3_shared.immutable.PaymentInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable order lifecycles per second, four synced appends each, with syncs shared between concurrent
+ * callers and without. main runs both at 1, 8 and 32 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderJournalBenchmarks {
+
+    private static final List<Item> ITEMS = List.of(new Item(), new Item());
+    private static final PaymentInfo PAYMENT = new PaymentInfo();
+
+    @Param({"true", "false"})
+    public boolean groupCommit;
+
+    private Path directory;
+    private JournaledOrderStore store;
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(OrderJournalBenchmarks.class.getName())
+                    .threads(threads)
+                    .forks(1)
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("orders");
+        store = JournaledOrderStore.open(directory, groupCommit);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean lifecycle() {
+        long orderId = store.createOrder(ITEMS);
+        store.setPacked(orderId);
+        store.updatePaymentInfo(orderId, PAYMENT);
+        return store.isDelivered(orderId);
+    }
+}
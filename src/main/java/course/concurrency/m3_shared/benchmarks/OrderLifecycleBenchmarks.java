@@ -0,0 +1,72 @@
+package course.concurrency.m3_shared.benchmarks;
+
+import course.concurrency.m3_shared.immutable.Item;
+import course.concurrency.m3_shared.immutable.OrderService;
+import course.concurrency.m3_shared.immutable.OrderStore;
+import course.concurrency.m3_shared.immutable.PaymentInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 10M orders taken from NEW through PAID_AND_PACKED to DELIVERED, one after another or from
+ * the common pool. Run with -prof gc to compare allocations per lifecycle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class OrderLifecycleBenchmarks {
+
+    private static final List<Item> ITEMS = List.of(new Item(), new Item());
+    private static final PaymentInfo PAYMENT = new PaymentInfo();
+
+    @Param({"10000000"})
+    public int orders;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderLifecycleBenchmarks.class.getName())
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    public long orderService() {
+        OrderService service = new OrderService();
+        return lifecycles().filter(i -> {
+            long id = service.createOrder(ITEMS);
+            service.setPacked(id);
+            service.updatePaymentInfo(id, PAYMENT);
+            return service.isDelivered(id);
+        }).count();
+    }
+
+    @Benchmark
+    public long orderStore() {
+        OrderStore store = new OrderStore();
+        return lifecycles().filter(i -> {
+            long id = store.createOrder(ITEMS);
+            store.setPacked(id);
+            store.updatePaymentInfo(id, PAYMENT);
+            return store.isDelivered(id);
+        }).count();
+    }
+
+    private LongStream lifecycles() {
+        LongStream range = LongStream.range(0, orders);
+        return parallel ? range.parallel() : range;
+    }
+}
@@ -0,0 +1,114 @@
+package course.concurrency.m3_shared.benchmarks;
+
+import course.concurrency.m3_shared.collections.Restaurant;
+import course.concurrency.m3_shared.collections.RestaurantDirectory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the previous ConcurrentHashMap against RestaurantDirectory, and the heap each keeps
+ * per restaurant on top of the restaurants themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RestaurantDirectoryBenchmarks {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private List<Restaurant> restaurants;
+    private String[] names;
+    private Map<String, Restaurant> map;
+    private RestaurantDirectory directory;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RestaurantDirectoryBenchmarks.class.getName())
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        restaurants = new ArrayList<>(size);
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            restaurants.add(new Restaurant("restaurant-" + i));
+            // distinct instances with warm hash codes, as names parsed from requests would be
+            names[i] = new String(restaurants.get(i).getName());
+            names[i].hashCode();
+        }
+        map = buildMap();
+        directory = new RestaurantDirectory(restaurants);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerRestaurant;
+    }
+
+    @Benchmark
+    public Restaurant mapGet() {
+        return map.get(names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Restaurant directoryGet() {
+        return directory.get(names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public List<Restaurant> directoryPrefix() {
+        return directory.findByPrefix("restaurant-" + ThreadLocalRandom.current().nextInt(size / 100 + 1), 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object mapFootprint(Footprint footprint) {
+        long before = usedHeap();
+        Map<String, Restaurant> built = buildMap();
+        footprint.bytesPerRestaurant = (usedHeap() - before) / size;
+        return built;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object directoryFootprint(Footprint footprint) {
+        long before = usedHeap();
+        RestaurantDirectory built = new RestaurantDirectory(restaurants);
+        footprint.bytesPerRestaurant = (usedHeap() - before) / size;
+        return built;
+    }
+
+    private Map<String, Restaurant> buildMap() {
+        Map<String, Restaurant> built = new ConcurrentHashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            built.put(restaurant.getName(), restaurant);
+        }
+        return built;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,94 @@
+package course.concurrency.m3_shared.collections;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size frequency sketch. An estimate never undercounts, and with probability 1 - e^-depth
+ * it overcounts by at most e / width of all hits.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counts;
+    private final LongAdder total = new LongAdder();
+
+    // width is rounded up to a power of two
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > 1 << 30 || depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException();
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.counts = new AtomicLongArray(this.width * depth);
+    }
+
+    // sized so that estimates are off by at most epsilon of all hits with probability 1 - delta
+    public static CountMinSketch withError(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException();
+        }
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    // returns the estimate including this hit
+    public long add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, counts.incrementAndGet(index));
+        }
+        total.increment();
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(row * width + ((h1 + row * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    // overcount that is exceeded with probability at most e^-depth
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / width * getTotal());
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getMemoryBytes() {
+        return 8L * width * depth;
+    }
+
+    // 64-bit FNV-1a of the characters: keys that share a 32-bit hashCode would otherwise meet in every row
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        // FNV leaves the high bits weak for short keys, the finalizer spreads them for the second row hash
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,112 @@
+package course.concurrency.m3_shared.collections;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Most frequent keys of an unbounded key space in fixed memory: a Count-Min sketch counts every key
+ * and a Space-Saving list of capacity keys remembers which ones to report. A key whose estimate exceeds
+ * the smallest estimate on the list replaces that key.
+ */
+public class HeavyHitters {
+
+    private final int capacity;
+    private final CountMinSketch sketch;
+    private final Set<String> monitored;
+    // smallest estimate on a full list as of the last admission, estimates only grow so it may be stale low
+    private volatile long threshold;
+
+    public HeavyHitters(int capacity) {
+        this(capacity, CountMinSketch.withError(0.0001, 0.001));
+    }
+
+    public HeavyHitters(int capacity, CountMinSketch sketch) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.sketch = sketch;
+        this.monitored = ConcurrentHashMap.newKeySet(capacity * 2);
+    }
+
+    // hits of monitored keys and of keys below the threshold never take the lock
+    public void add(String key) {
+        long estimate = sketch.add(key);
+        if (estimate > threshold && !monitored.contains(key)) {
+            admit(key, estimate);
+        }
+    }
+
+    public HitEstimate estimate(String key) {
+        return new HitEstimate(key, sketch.estimate(key), sketch.getErrorBound());
+    }
+
+    public List<HitEstimate> top(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+        long errorBound = sketch.getErrorBound();
+        return monitored.stream()
+                .map(key -> new HitEstimate(key, sketch.estimate(key), errorBound))
+                .sorted(Comparator.comparingLong(HitEstimate::getCount).reversed()
+                        .thenComparing(HitEstimate::getKey))
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+
+    public long getTotal() {
+        return sketch.getTotal();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+
+    private synchronized void admit(String key, long estimate) {
+        if (monitored.contains(key)) {
+            return;
+        }
+        if (monitored.size() < capacity) {
+            monitored.add(key);
+            if (monitored.size() == capacity) {
+                threshold = minimum();
+            }
+            return;
+        }
+        String victim = null;
+        long min = Long.MAX_VALUE;
+        long secondMin = Long.MAX_VALUE;
+        for (String candidate : monitored) {
+            long candidateEstimate = sketch.estimate(candidate);
+            if (candidateEstimate < min) {
+                secondMin = min;
+                min = candidateEstimate;
+                victim = candidate;
+            } else if (candidateEstimate < secondMin) {
+                secondMin = candidateEstimate;
+            }
+        }
+        if (estimate > min) {
+            monitored.remove(victim);
+            monitored.add(key);
+            threshold = Math.min(secondMin, estimate);
+        } else {
+            threshold = min;
+        }
+    }
+
+    private long minimum() {
+        long min = Long.MAX_VALUE;
+        for (String candidate : monitored) {
+            min = Math.min(min, sketch.estimate(candidate));
+        }
+        return min;
+    }
+}
@@ -0,0 +1,57 @@
+package course.concurrency.m3_shared.collections;
+
+import java.util.Objects;
+
+/**
+ * Hits of a key counted at most errorBound too high: the true count lies in [count - errorBound, count].
+ */
+public final class HitEstimate {
+
+    private final String key;
+    private final long count;
+    private final long errorBound;
+
+    public HitEstimate(String key, long count, long errorBound) {
+        this.key = key;
+        this.count = count;
+        this.errorBound = errorBound;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrorBound() {
+        return errorBound;
+    }
+
+    public long getLowerBound() {
+        return Math.max(0, count - errorBound);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HitEstimate)) {
+            return false;
+        }
+        HitEstimate that = (HitEstimate) o;
+        return count == that.count && errorBound == that.errorBound && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, count, errorBound);
+    }
+
+    @Override
+    public String toString() {
+        return key + " - " + count + (errorBound == 0 ? "" : " (error " + errorBound + ")");
+    }
+}
@@ -0,0 +1,59 @@
+package course.concurrency.m3_shared.collections;
+
+import course.concurrency.m3_shared.collections.HitStatistics.Window;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hits of every key as of one roll of the statistics, hits of the current second are included.
+ */
+public final class HitSnapshot {
+
+    private final long second;
+    private final Map<String, long[]> hits;
+
+    HitSnapshot(long second, Map<String, long[]> hits) {
+        this.second = second;
+        this.hits = hits;
+    }
+
+    public long getSecond() {
+        return second;
+    }
+
+    public Set<String> getKeys() {
+        return hits.keySet();
+    }
+
+    public long getHits(String key, Window window) {
+        long[] keyHits = hits.get(key);
+        return keyHits == null ? 0 : keyHits[window.ordinal()];
+    }
+
+    public long getTotal(String key) {
+        return getHits(key, Window.TOTAL);
+    }
+
+    // keys with the most hits in the window, ties broken by key so that equal snapshots give equal answers
+    public List<Map.Entry<String, Long>> topN(int n, Window window) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+        return hits.keySet().stream()
+                .map(key -> Map.entry(key, getHits(key, window)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return topN(hits.size(), Window.TOTAL).toString();
+    }
+}
@@ -0,0 +1,200 @@
+package course.concurrency.m3_shared.collections;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Hit counters with per-second resolution over the last minute, per-minute over the last hour
+ * and per-hour over the last day.
+ * Writers only increment a LongAdder of the current epoch and never read the clock. Once a second
+ * the epoch is rolled: writers move to the other adder and the finished one is folded into the rings
+ * under a lock that only the roller and snapshots take.
+ */
+public class HitStatistics {
+
+    public enum Window { MINUTE, HOUR, DAY, TOTAL }
+
+    private static final int SECONDS = 60;
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24;
+
+    private static final Queue<WeakReference<HitStatistics>> TICKED = new ConcurrentLinkedQueue<>();
+    private static volatile ScheduledExecutorService ticker;
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final LongSupplier clockMillis;
+    private volatile int epoch;
+    private long epochSecond;
+
+    public HitStatistics() {
+        this(System::currentTimeMillis);
+        startTicker(this);
+    }
+
+    // rolled only by snapshots, for tests that drive the clock
+    public HitStatistics(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+        this.epochSecond = second();
+    }
+
+    // known keys are registered up front, so hits on them never allocate or lock
+    public Counter register(String key) {
+        return counters.computeIfAbsent(key, Counter::new);
+    }
+
+    // an unknown key gets a counter with all of its rings, callers keep the set of keys bounded
+    public void increment(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = register(key);
+        }
+        counter.increment();
+    }
+
+    public Counter counter(String key) {
+        return counters.get(key);
+    }
+
+    public synchronized HitSnapshot snapshot() {
+        roll();
+        Map<String, long[]> hits = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            hits.put(counter.key, new long[] {
+                    counter.lastMinute(epochSecond),
+                    counter.lastHour(epochSecond),
+                    counter.lastDay(epochSecond),
+                    counter.total()
+            });
+        }
+        return new HitSnapshot(epochSecond, hits);
+    }
+
+    synchronized void roll() {
+        long now = second();
+        if (now <= epochSecond) {
+            return;
+        }
+        int finished = epoch;
+        epoch = finished ^ 1;
+        for (Counter counter : counters.values()) {
+            // stragglers that read the old epoch just before the flip are counted with the next roll of it
+            counter.fold(counter.epochs[finished].sumThenReset(), epochSecond);
+        }
+        epochSecond = now;
+    }
+
+    private long second() {
+        return TimeUnit.MILLISECONDS.toSeconds(clockMillis.getAsLong());
+    }
+
+    private static void startTicker(HitStatistics statistics) {
+        TICKED.add(new WeakReference<>(statistics));
+        if (ticker == null) {
+            synchronized (HitStatistics.class) {
+                if (ticker == null) {
+                    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+                        Thread thread = new Thread(task, "hit-statistics-roller");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.scheduleAtFixedRate(HitStatistics::tick, 100, 100, TimeUnit.MILLISECONDS);
+                    ticker = executor;
+                }
+            }
+        }
+    }
+
+    private static void tick() {
+        TICKED.removeIf(reference -> {
+            HitStatistics statistics = reference.get();
+            if (statistics != null) {
+                statistics.roll();
+            }
+            return statistics == null;
+        });
+    }
+
+    public final class Counter {
+        private final String key;
+        private final LongAdder[] epochs = {new LongAdder(), new LongAdder()};
+        // written by the roller only, under the lock of HitStatistics
+        private long total;
+        private final long[] seconds = new long[SECONDS];
+        private final long[] secondTags = new long[SECONDS];
+        private final long[] minutes = new long[MINUTES];
+        private final long[] minuteTags = new long[MINUTES];
+        private final long[] hours = new long[HOURS];
+        private final long[] hourTags = new long[HOURS];
+
+        private Counter(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void increment() {
+            epochs[epoch].increment();
+        }
+
+        private void fold(long hits, long second) {
+            if (hits == 0) {
+                return;
+            }
+            total += hits;
+            add(seconds, secondTags, second, hits);
+            add(minutes, minuteTags, second / 60, hits);
+            add(hours, hourTags, second / 3600, hits);
+        }
+
+        // hits not rolled yet, they belong to the current second
+        long pending() {
+            return epochs[0].sum() + epochs[1].sum();
+        }
+
+        long total() {
+            return total + pending();
+        }
+
+        long lastMinute(long now) {
+            return sum(seconds, secondTags, now - SECONDS + 1, now) + pending();
+        }
+
+        long lastHour(long now) {
+            return sum(minutes, minuteTags, now / 60 - MINUTES + 1, now / 60) + pending();
+        }
+
+        long lastDay(long now) {
+            return sum(hours, hourTags, now / 3600 - HOURS + 1, now / 3600) + pending();
+        }
+
+        private void add(long[] ring, long[] tags, long tag, long hits) {
+            int slot = (int) (tag % ring.length);
+            if (tags[slot] != tag) {
+                tags[slot] = tag;
+                ring[slot] = 0;
+            }
+            ring[slot] += hits;
+        }
+
+        private long sum(long[] ring, long[] tags, long from, long to) {
+            long sum = 0;
+            for (int slot = 0; slot < ring.length; slot++) {
+                if (tags[slot] >= from && tags[slot] <= to) {
+                    sum += ring[slot];
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package course.concurrency.m3_shared.collections;
 
 public class Restaurant {
-    private String name;
+    private final String name;
 
     public Restaurant(String name) {
         this.name = name;
@@ -0,0 +1,139 @@
+package course.concurrency.m3_shared.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-mostly catalog of restaurants. Readers go through a single volatile read to an immutable table:
+ * names sorted for prefix search and an open-addressing index over them, so lookups take no locks
+ * and allocate nothing. Updates build a new table and swap it in.
+ */
+public class RestaurantDirectory {
+
+    private volatile Table table;
+
+    public RestaurantDirectory(Collection<Restaurant> restaurants) {
+        this.table = new Table(restaurants);
+    }
+
+    public Restaurant get(String name) {
+        return table.get(name);
+    }
+
+    public int size() {
+        return table.names.length;
+    }
+
+    // restaurants whose name starts with the prefix, in name order
+    public List<Restaurant> findByPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException();
+        }
+        return table.findByPrefix(prefix, limit);
+    }
+
+    // readers see either the old catalog or the new one, never a mix
+    public synchronized void reload(Collection<Restaurant> restaurants) {
+        table = new Table(restaurants);
+    }
+
+    // copies the whole table, use reload for more than a few changes
+    public synchronized void put(Restaurant restaurant) {
+        Map<String, Restaurant> restaurants = table.toMap();
+        restaurants.put(restaurant.getName(), restaurant);
+        table = new Table(restaurants.values());
+    }
+
+    public synchronized Restaurant remove(String name) {
+        Map<String, Restaurant> restaurants = table.toMap();
+        Restaurant removed = restaurants.remove(name);
+        if (removed != null) {
+            table = new Table(restaurants.values());
+        }
+        return removed;
+    }
+
+    public List<String> getNames() {
+        return List.of(table.names);
+    }
+
+    private static final class Table {
+        private final String[] names;
+        private final Restaurant[] restaurants;
+        // position in names plus one, zero marks an empty slot
+        private final int[] slots;
+        private final int[] hashes;
+        private final int mask;
+
+        private Table(Collection<Restaurant> catalog) {
+            Restaurant[] sorted = catalog.toArray(new Restaurant[0]);
+            Arrays.sort(sorted, Comparator.comparing(Restaurant::getName));
+            names = new String[sorted.length];
+            restaurants = sorted;
+            for (int i = 0; i < sorted.length; i++) {
+                names[i] = sorted[i].getName();
+                if (i > 0 && names[i].equals(names[i - 1])) {
+                    throw new IllegalArgumentException("Duplicate restaurant " + names[i]);
+                }
+            }
+            // load factor of at most a half keeps probe sequences short
+            int capacity = Integer.highestOneBit(Math.max(2, names.length) * 2 - 1) << 1;
+            slots = new int[capacity];
+            hashes = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < names.length; i++) {
+                int hash = hash(names[i]);
+                int slot = hash & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+                hashes[slot] = hash;
+            }
+        }
+
+        private Restaurant get(String name) {
+            int hash = hash(name);
+            int slot = hash & mask;
+            int position;
+            while ((position = slots[slot]) != 0) {
+                if (hashes[slot] == hash && names[position - 1].equals(name)) {
+                    return restaurants[position - 1];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private List<Restaurant> findByPrefix(String prefix, int limit) {
+            int from = Arrays.binarySearch(names, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            List<Restaurant> found = new ArrayList<>();
+            for (int i = from; i < names.length && found.size() < limit && names[i].startsWith(prefix); i++) {
+                found.add(restaurants[i]);
+            }
+            return found;
+        }
+
+        private Map<String, Restaurant> toMap() {
+            Map<String, Restaurant> map = new TreeMap<>();
+            for (Restaurant restaurant : restaurants) {
+                map.put(restaurant.getName(), restaurant);
+            }
+            return map;
+        }
+
+        // String caches its hash code, the multiply spreads sequential codes over the table
+        private static int hash(String name) {
+            int hash = name.hashCode() * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package course.concurrency.m3_shared.collections;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -8,16 +10,53 @@ import java.util.stream.Collectors;
 
 public class RestaurantService {
 
-    private final Map<String, Restaurant> restaurantMap = new ConcurrentHashMap<>() {{
-        put("A", new Restaurant("A"));
-        put("B", new Restaurant("B"));
-        put("C", new Restaurant("C"));
-    }};
-    private final Map<String, LongAdder> stat = new ConcurrentHashMap<>();
+    // hits on names missing from the directory share one key in both modes, so lookups of arbitrary names
+    // cannot grow the statistics or push restaurants out of the top
+    public static final String UNKNOWN = "<unknown>";
+
+    private static final int TOP_CAPACITY = 100;
+
+    private final RestaurantDirectory directory = new RestaurantDirectory(List.of(
+            new Restaurant("A"),
+            new Restaurant("B"),
+            new Restaurant("C")));
+    private final StatMode statMode;
+    private final HitStatistics stat;
+    private final HeavyHitters heavyHitters;
+
+    public RestaurantService() {
+        this(StatMode.EXACT);
+    }
+
+    public RestaurantService(StatMode statMode) {
+        this.statMode = statMode;
+        if (statMode == StatMode.EXACT) {
+            stat = new HitStatistics();
+            heavyHitters = null;
+            directory.getNames().forEach(stat::register);
+            stat.register(UNKNOWN);
+        } else {
+            stat = null;
+            heavyHitters = new HeavyHitters(TOP_CAPACITY);
+        }
+    }
 
     public Restaurant getByName(String restaurantName) {
-        addToStat(restaurantName);
-        return restaurantMap.get(restaurantName);
+        Restaurant restaurant = directory.get(restaurantName);
+        count(restaurantName, restaurant != null);
+        return restaurant;
+    }
+
+    public List<Restaurant> findByPrefix(String prefix, int limit) {
+        return directory.findByPrefix(prefix, limit);
+    }
+
+    // swaps the whole catalog at once, counters of new names are registered up front
+    public void reloadRestaurants(Collection<Restaurant> restaurants) {
+        directory.reload(restaurants);
+        if (stat != null) {
+            directory.getNames().forEach(stat::register);
+        }
     }
 
     public static void main(String[] args) throws InterruptedException {
@@ -29,13 +68,60 @@ public class RestaurantService {
     }
 
     public Set<String> printStat() {
-        return stat.keySet().stream()
-                .map(rest -> rest + " - " + stat.get(rest).sum())
+        if (statMode == StatMode.APPROXIMATE) {
+            return heavyHitters.top(TOP_CAPACITY).stream()
+                    .map(hits -> hits.getKey() + " - " + hits.getCount())
+                    .collect(Collectors.toSet());
+        }
+        HitSnapshot snapshot = stat.snapshot();
+        return snapshot.getKeys().stream()
+                .filter(rest -> snapshot.getTotal(rest) > 0)
+                .map(rest -> rest + " - " + snapshot.getTotal(rest))
                 .collect(Collectors.toSet());
     }
 
+    public StatMode getStatMode() {
+        return statMode;
+    }
+
+    public HitSnapshot getStat() {
+        return exactStat().snapshot();
+    }
+
+    public List<Map.Entry<String, Long>> getTop(int n, HitStatistics.Window window) {
+        return exactStat().snapshot().topN(n, window);
+    }
+
+    // most popular names over all time, exact counts have no error
+    public List<HitEstimate> getTopEstimates(int n) {
+        if (statMode == StatMode.APPROXIMATE) {
+            return heavyHitters.top(n);
+        }
+        return stat.snapshot().topN(n, HitStatistics.Window.TOTAL).stream()
+                .map(entry -> new HitEstimate(entry.getKey(), entry.getValue(), 0))
+                .collect(Collectors.toList());
+    }
+
+    // a name that is not in the directory is counted as UNKNOWN rather than under its own name
     public void addToStat(String restaurantName) {
+        count(restaurantName, directory.get(restaurantName) != null);
+    }
+
+    private void count(String restaurantName, boolean known) {
 //        stat.merge(restaurantName, 1L, (oldV, newV) -> oldV + 1);
-        stat.computeIfAbsent(restaurantName, k -> new LongAdder()).increment();
+        String key = known ? restaurantName : UNKNOWN;
+        if (statMode == StatMode.APPROXIMATE) {
+            heavyHitters.add(key);
+        } else {
+            stat.increment(key);
+        }
+    }
+
+    // approximate statistics have no time windows
+    private HitStatistics exactStat() {
+        if (stat == null) {
+            throw new IllegalStateException("Statistics are " + statMode);
+        }
+        return stat;
     }
 }
@@ -0,0 +1,8 @@
+package course.concurrency.m3_shared.collections;
+
+public enum StatMode {
+    // every restaurant in the directory gets its own time-windowed counter, memory grows with the catalog
+    EXACT,
+    // fixed memory, counts of the most popular names are overestimated within a known bound
+    APPROXIMATE
+}
@@ -0,0 +1,232 @@
+package course.concurrency.m3_shared.immutable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * OrderStore that survives restarts. Every creation and transition is appended to an OrderJournal before
+ * the call returns, and every snapshotEvery events the flags of all orders are written to a snapshot,
+ * after which older segments are deleted. Opening the store loads the latest snapshot and replays the
+ * events after it.
+ */
+public class JournaledOrderStore extends OrderStore implements AutoCloseable {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x4f524452;
+    private static final long CREATED = eventFlags(OrderEvent.CREATE);
+
+    private final Path directory;
+    private final OrderJournal journal;
+    private final long snapshotEvery;
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "order-snapshotter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long snapshotSequence;
+    private final long recoveredEvents;
+
+    private JournaledOrderStore(Path directory, boolean groupCommit, int segmentRecords, long snapshotEvery,
+                                int recoveryThreads) {
+        if (snapshotEvery <= 0 || recoveryThreads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = directory;
+        this.journal = new OrderJournal(directory, groupCommit, segmentRecords);
+        this.snapshotEvery = snapshotEvery;
+        this.snapshotSequence = loadSnapshot();
+        journal.skipTo(snapshotSequence);
+        this.recoveredEvents = journal.replay(snapshotSequence, recoveryThreads,
+                (sequence, orderId, event, itemCount) -> restore(orderId, eventFlags(event), itemCount));
+    }
+
+    public static JournaledOrderStore open(Path directory, boolean groupCommit) {
+        return open(directory, groupCommit, 1 << 20, 1_000_000, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param groupCommit     sync appends of concurrent callers together instead of one by one
+     * @param segmentRecords  events per segment file
+     * @param snapshotEvery   events between snapshots, taken in the background
+     * @param recoveryThreads segments replayed in parallel on open
+     */
+    public static JournaledOrderStore open(Path directory, boolean groupCommit, int segmentRecords,
+                                           long snapshotEvery, int recoveryThreads) {
+        return new JournaledOrderStore(directory, groupCommit, segmentRecords, snapshotEvery, recoveryThreads);
+    }
+
+    @Override
+    protected void onCreate(long orderId, List<Item> items) {
+        record(orderId, OrderEvent.CREATE, items.size());
+    }
+
+    @Override
+    protected void onTransition(long orderId, OrderEvent event) {
+        record(orderId, event, 0);
+    }
+
+    /**
+     * Writes the flags of all orders and returns the journal sequence they cover. Events are applied before
+     * they are appended, so every event up to that sequence is in the snapshot; later events may be too,
+     * which is harmless as restoring flags is idempotent. The sequence is a durable one, so a crash cannot
+     * leave the journal behind the snapshot.
+     */
+    public synchronized long snapshot() {
+        journal.sync();
+        long sequence = journal.getDurableSequence();
+        Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(sequence);
+                long lastId = lastId();
+                for (long orderId = 1; orderId <= lastId; orderId++) {
+                    long flags = flags(orderId);
+                    if ((flags & CREATED) != 0) {
+                        out.writeLong(orderId);
+                        out.writeLong(flags);
+                        out.writeInt(itemCount(orderId));
+                    }
+                }
+                out.writeLong(0);
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            for (Path older : snapshots()) {
+                if (snapshotSequence(older) < sequence) {
+                    Files.delete(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        snapshotSequence = sequence;
+        journal.deleteSegmentsBefore(sequence + 1);
+        return sequence;
+    }
+
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public long getRecoveredEvents() {
+        return recoveredEvents;
+    }
+
+    public OrderJournal getJournal() {
+        return journal;
+    }
+
+    @Override
+    public void close() {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    private void record(long orderId, OrderEvent event, int itemCount) {
+        journal.append(orderId, event, itemCount);
+        if (sinceSnapshot.incrementAndGet() >= snapshotEvery && snapshotting.compareAndSet(false, true)) {
+            sinceSnapshot.set(0);
+            try {
+                snapshotter.execute(() -> {
+                    try {
+                        snapshot();
+                    } finally {
+                        snapshotting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                snapshotting.set(false);
+            }
+        }
+    }
+
+    // the newest snapshot that reads back completely, a torn one is skipped for the one before it
+    private long loadSnapshot() {
+        List<Path> snapshots = snapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            try (CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(Files.newInputStream(snapshot)), new CRC32())) {
+                DataInputStream in = new DataInputStream(checked);
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    continue;
+                }
+                long sequence = in.readLong();
+                OrderStore restored = new OrderStore();
+                long orderId;
+                while ((orderId = in.readLong()) != 0) {
+                    restored.restore(orderId, in.readLong(), in.readInt());
+                }
+                long expected = checked.getChecksum().getValue();
+                if (in.readLong() != expected) {
+                    continue;
+                }
+                copy(restored);
+                return sequence;
+            } catch (IOException e) {
+                // torn or unreadable, fall back to the previous snapshot
+            }
+        }
+        return 0;
+    }
+
+    private void copy(OrderStore restored) {
+        long lastId = restored.lastId();
+        for (long orderId = 1; orderId <= lastId; orderId++) {
+            long flags = restored.flags(orderId);
+            if (flags != 0) {
+                restore(orderId, flags, restored.itemCount(orderId));
+            }
+        }
+    }
+
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                            && file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted((a, b) -> Long.compare(snapshotSequence(a), snapshotSequence(b)))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long snapshotSequence(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
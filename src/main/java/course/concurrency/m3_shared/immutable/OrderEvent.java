@@ -0,0 +1,5 @@
+package course.concurrency.m3_shared.immutable;
+
+public enum OrderEvent {
+    PAY, PACK, DELIVER, CREATE
+}
@@ -0,0 +1,360 @@
+package course.concurrency.m3_shared.immutable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of order events, split into segment files named after the sequence of their first record.
+ * An append returns once its record is on disk. With group commit the appenders that arrive while a sync
+ * is running are written and synced together by one of them, otherwise every append syncs on its own.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    // sequence, orderId, event, item count, crc of the preceding 24 bytes, padding
+    public static final int RECORD_SIZE = 32;
+
+    private static final int CHECKED_SIZE = 24;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean groupCommit;
+    private final int segmentRecords;
+    private final LongAdder syncs = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    // guarded by the lock
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(RECORD_SIZE * 1024);
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private IOException failure;
+    private boolean closed;
+
+    // only touched by the appender that flushes
+    private FileChannel channel;
+    private int channelRecords;
+
+    public OrderJournal(Path directory, boolean groupCommit, int segmentRecords) {
+        if (segmentRecords <= 0 || (long) segmentRecords * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported segment size: " + segmentRecords);
+        }
+        this.directory = directory;
+        this.groupCommit = groupCommit;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            this.lastSequence = recoverTail();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.durableSequence = lastSequence;
+    }
+
+    public long append(long orderId, OrderEvent event, int itemCount) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order journal is closed");
+            }
+            long sequence = ++lastSequence;
+            put(sequence, orderId, event, itemCount);
+            awaitDurable(sequence);
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync() {
+        lock.lock();
+        try {
+            awaitDurable(lastSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // every record up to this sequence is on disk
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Continues numbering after the sequence if the tail on disk ends before it, as it does when a snapshot
+     * covered records that were lost in a crash. Reusing those sequences would hide the new records from
+     * a replay after the snapshot.
+     */
+    public void skipTo(long sequence) {
+        lock.lock();
+        try {
+            if (sequence > lastSequence) {
+                lastSequence = sequence;
+                durableSequence = sequence;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    /**
+     * Passes every record after the sequence to the consumer, reading segments in parallel,
+     * so records of different segments arrive in no particular order. Returns the number of records.
+     */
+    public long replay(long afterSequence, int parallelism, Consumer consumer) {
+        List<Path> segments = segments();
+        List<Path> needed = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            if (last || firstSequence(segments.get(i + 1)) > afterSequence + 1) {
+                needed.add(segments.get(i));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, needed.size())));
+        try {
+            List<Future<Long>> replayed = new ArrayList<>();
+            for (Path segment : needed) {
+                replayed.add(executor.submit(() -> replaySegment(segment, afterSequence, consumer)));
+            }
+            long records = 0;
+            for (Future<Long> future : replayed) {
+                records += future.get();
+            }
+            return records;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // removes segments that hold nothing after the sequence, the segment being written is always kept
+    public void deleteSegmentsBefore(long sequence) {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSequence(segments.get(i + 1)) <= sequence) {
+                try {
+                    Files.deleteIfExists(segments.get(i));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            awaitDurable(lastSequence);
+            closed = true;
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(long sequence, long orderId, OrderEvent event, int itemCount) {
+        if (pending.remaining() < RECORD_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            grown.put(pending.flip());
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.putLong(sequence).putLong(orderId).putInt(event.ordinal()).putInt(itemCount);
+        CRC32 crc = new CRC32();
+        crc.update(pending.duplicate().position(start).limit(start + CHECKED_SIZE));
+        pending.putInt((int) crc.getValue()).putInt(0);
+    }
+
+    // the first waiter without a sync in progress becomes the leader and syncs everything appended so far
+    private void awaitDurable(long sequence) {
+        while (durableSequence < sequence) {
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            if (flushing) {
+                flushed.awaitUninterruptibly();
+                continue;
+            }
+            flushing = true;
+            ByteBuffer batch = pending;
+            pending = spare.clear();
+            spare = batch;
+            long batchEnd = lastSequence;
+            IOException error = null;
+            if (groupCommit) {
+                lock.unlock();
+            }
+            try {
+                write(batch.flip());
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                if (groupCommit) {
+                    lock.lock();
+                }
+            }
+            flushing = false;
+            if (error == null) {
+                durableSequence = batchEnd;
+            } else {
+                failure = error;
+            }
+            flushed.signalAll();
+        }
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        while (batch.hasRemaining()) {
+            if (channel == null || channelRecords == segmentRecords) {
+                roll(batch.getLong(batch.position()));
+            }
+            int records = Math.min(batch.remaining() / RECORD_SIZE, segmentRecords - channelRecords);
+            ByteBuffer slice = batch.duplicate().limit(batch.position() + records * RECORD_SIZE);
+            while (slice.hasRemaining()) {
+                channel.write(slice);
+            }
+            batch.position(slice.position());
+            channelRecords += records;
+        }
+        channel.force(false);
+        syncs.increment();
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        channel = FileChannel.open(segment(firstSequence), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channelRecords = 0;
+        // the new file name has to survive a crash as well
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    // cuts a torn record off the last segment, earlier segments were synced before the next one was started
+    private long recoverTail() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Path last = segments.get(segments.size() - 1);
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(last));
+        long sequence = firstSequence(last) - 1;
+        int valid = 0;
+        while (records.remaining() >= RECORD_SIZE && valid(records, records.position())) {
+            sequence = records.getLong(records.position());
+            records.position(records.position() + RECORD_SIZE);
+            valid++;
+        }
+        if (valid == 0) {
+            Files.delete(last);
+        } else {
+            try (FileChannel truncated = FileChannel.open(last, StandardOpenOption.WRITE)) {
+                truncated.truncate((long) valid * RECORD_SIZE);
+                truncated.force(true);
+            }
+        }
+        return sequence;
+    }
+
+    private long replaySegment(Path segment, long afterSequence, Consumer consumer) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        long replayed = 0;
+        for (int offset = 0; offset + RECORD_SIZE <= records.limit() && valid(records, offset);
+             offset += RECORD_SIZE) {
+            long sequence = records.getLong(offset);
+            if (sequence > afterSequence) {
+                consumer.accept(sequence, records.getLong(offset + Long.BYTES),
+                        OrderEvent.values()[records.getInt(offset + 2 * Long.BYTES)],
+                        records.getInt(offset + 2 * Long.BYTES + Integer.BYTES));
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static boolean valid(ByteBuffer records, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(records.duplicate().position(offset).limit(offset + CHECKED_SIZE));
+        int event = records.getInt(offset + 2 * Long.BYTES);
+        return records.getLong(offset) > 0 && event >= 0 && event < OrderEvent.values().length
+                && records.getInt(offset + CHECKED_SIZE) == (int) crc.getValue();
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted((a, b) -> Long.compare(firstSequence(a), firstSequence(b)))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segment(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public interface Consumer {
+        void accept(long sequence, long orderId, OrderEvent event, int itemCount);
+    }
+}
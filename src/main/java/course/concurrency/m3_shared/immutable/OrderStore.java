@@ -0,0 +1,253 @@
+package course.concurrency.m3_shared.immutable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static course.concurrency.m3_shared.immutable.Order.Status.DELIVERED;
+import static course.concurrency.m3_shared.immutable.Order.Status.NEW;
+import static course.concurrency.m3_shared.immutable.Order.Status.PACKED;
+import static course.concurrency.m3_shared.immutable.Order.Status.PAID;
+import static course.concurrency.m3_shared.immutable.Order.Status.PAID_AND_PACKED;
+
+/**
+ * Same lifecycle as OrderService without an Order per transition. Lifecycle state of an order is one long
+ * holding status and flags, changed by a CAS along a transition table; Order objects are only built for reads.
+ * Orders live in segments of arrays indexed by id, ids are never reused.
+ */
+public class OrderStore {
+
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_SEGMENTS = 1 << 15;
+
+    private static final Order.Status[] STATUSES = Order.Status.values();
+    private static final int STATUS_MASK = 0b111;
+    private static final long PAID_FLAG = 1 << 3;
+    private static final long PACKED_FLAG = 1 << 4;
+    private static final long EXISTS_FLAG = 1 << 5;
+    private static final long DELIVERED_FLAG = 1 << 6;
+    private static final long[] EVENT_FLAGS = {PAID_FLAG, PACKED_FLAG, DELIVERED_FLAG, EXISTS_FLAG};
+
+    // next status by status and event, -1 leaves the order as it is
+    private static final int[][] TRANSITIONS = new int[STATUSES.length][OrderEvent.values().length];
+
+    static {
+        for (int[] transitions : TRANSITIONS) {
+            Arrays.fill(transitions, -1);
+        }
+        transition(NEW, OrderEvent.PAY, PAID);
+        transition(NEW, OrderEvent.PACK, PACKED);
+        transition(PAID, OrderEvent.PACK, PAID_AND_PACKED);
+        transition(PACKED, OrderEvent.PAY, PAID_AND_PACKED);
+        transition(PAID_AND_PACKED, OrderEvent.DELIVER, DELIVERED);
+    }
+
+    private final AtomicReferenceArray<Segment> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicLong ids = new AtomicLong();
+
+    public long createOrder(List<Item> items) {
+        long id = ids.incrementAndGet();
+        Segment segment = segment(id, true);
+        int index = (int) (id & SEGMENT_MASK);
+        segment.items[index] = items;
+        // the volatile write publishes the items
+        segment.states.set(index, EXISTS_FLAG | NEW.ordinal());
+        onCreate(id, items);
+        return id;
+    }
+
+    public void updatePaymentInfo(long orderId, PaymentInfo paymentInfo) {
+        // a null would read as "not paid yet" in the payment slot
+        if (paymentInfo == null) {
+            throw new IllegalArgumentException("Missing payment info for order " + orderId);
+        }
+        Segment segment = segment(orderId, false);
+        if (segment == null) {
+            return;
+        }
+        // the first payment is kept, as OrderService ignores payments of paid orders
+        int index = (int) (orderId & SEGMENT_MASK);
+        if ((segment.states.get(index) & EXISTS_FLAG) == 0
+                || !segment.paymentInfos.compareAndSet(index, null, paymentInfo)) {
+            return;
+        }
+        Order.Status status = apply(segment, index, OrderEvent.PAY);
+        if (status != null) {
+            onTransition(orderId, OrderEvent.PAY);
+        }
+        if (status == PAID_AND_PACKED) {
+            deliver(orderId, segment, index);
+        }
+    }
+
+    public void setPacked(long orderId) {
+        Segment segment = segment(orderId, false);
+        if (segment == null) {
+            return;
+        }
+        int index = (int) (orderId & SEGMENT_MASK);
+        Order.Status status = apply(segment, index, OrderEvent.PACK);
+        if (status != null) {
+            onTransition(orderId, OrderEvent.PACK);
+        }
+        if (status == PAID_AND_PACKED) {
+            deliver(orderId, segment, index);
+        }
+    }
+
+    public boolean isDelivered(long orderId) {
+        return status(orderId) == DELIVERED;
+    }
+
+    public Order.Status status(long orderId) {
+        return STATUSES[(int) (existing(orderId) & STATUS_MASK)];
+    }
+
+    // consistent view of one state word, payment info is shown once the order is paid
+    public Order getOrder(long orderId) {
+        long state = existing(orderId);
+        Segment segment = segment(orderId, false);
+        int index = (int) (orderId & SEGMENT_MASK);
+        PaymentInfo paymentInfo = (state & PAID_FLAG) != 0 ? segment.paymentInfos.get(index) : null;
+        return new Order(orderId, segment.items(index), paymentInfo, (state & PACKED_FLAG) != 0,
+                STATUSES[(int) (state & STATUS_MASK)]);
+    }
+
+    // only the thread that completed payment and packing gets here, so an order is delivered once;
+    // an order without items stays paid and packed, as Order.checkStatus does not let it through either
+    private void deliver(long orderId, Segment segment, int index) {
+        List<Item> items = segment.items(index);
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        if (apply(segment, index, OrderEvent.DELIVER) != null) {
+            onTransition(orderId, OrderEvent.DELIVER);
+        }
+    }
+
+    // called by the thread that created the order, before createOrder returns
+    protected void onCreate(long orderId, List<Item> items) {
+    }
+
+    // called by the thread whose event changed the order, after the change is visible to readers
+    protected void onTransition(long orderId, OrderEvent event) {
+    }
+
+    static long eventFlags(OrderEvent event) {
+        return EVENT_FLAGS[event.ordinal()];
+    }
+
+    long lastId() {
+        return ids.get();
+    }
+
+    // lifecycle flags of an order without its status, 0 for unknown ids
+    long flags(long orderId) {
+        Segment segment = segment(orderId, false);
+        return segment == null ? 0 : segment.states.get((int) (orderId & SEGMENT_MASK)) & ~STATUS_MASK;
+    }
+
+    int itemCount(long orderId) {
+        Segment segment = segment(orderId, false);
+        List<Item> items = segment == null ? null : segment.items((int) (orderId & SEGMENT_MASK));
+        return items == null ? 0 : items.size();
+    }
+
+    /**
+     * Adds flags to an order during recovery and derives its status from them. Flags only accumulate,
+     * so events and snapshots can be restored in any order and more than once.
+     */
+    void restore(long orderId, long flags, int itemCount) {
+        ids.accumulateAndGet(orderId, Math::max);
+        Segment segment = segment(orderId, true);
+        int index = (int) (orderId & SEGMENT_MASK);
+        if ((flags & EXISTS_FLAG) != 0 && segment.items[index] == null) {
+            Item[] items = new Item[itemCount];
+            Arrays.setAll(items, i -> new Item());
+            segment.items[index] = List.of(items);
+        }
+        if ((flags & PAID_FLAG) != 0) {
+            segment.paymentInfos.compareAndSet(index, null, new PaymentInfo());
+        }
+        while (true) {
+            long state = segment.states.get(index);
+            long merged = state & ~STATUS_MASK | flags & ~STATUS_MASK;
+            if (segment.states.compareAndSet(index, state, merged | statusOf(merged).ordinal())) {
+                return;
+            }
+        }
+    }
+
+    private static Order.Status statusOf(long flags) {
+        if ((flags & DELIVERED_FLAG) != 0) {
+            return DELIVERED;
+        }
+        if ((flags & PAID_FLAG) != 0) {
+            return (flags & PACKED_FLAG) != 0 ? PAID_AND_PACKED : PAID;
+        }
+        return (flags & PACKED_FLAG) != 0 ? PACKED : NEW;
+    }
+
+    // returns the status the event moved the order to, or null if the event did not apply
+    private static Order.Status apply(Segment segment, int index, OrderEvent event) {
+        while (true) {
+            long state = segment.states.get(index);
+            if ((state & EXISTS_FLAG) == 0) {
+                return null;
+            }
+            int next = TRANSITIONS[(int) (state & STATUS_MASK)][event.ordinal()];
+            if (next < 0) {
+                return null;
+            }
+            long updated = state & ~STATUS_MASK | EVENT_FLAGS[event.ordinal()] | next;
+            if (segment.states.compareAndSet(index, state, updated)) {
+                return STATUSES[next];
+            }
+        }
+    }
+
+    private long existing(long orderId) {
+        Segment segment = segment(orderId, false);
+        long state = segment == null ? 0 : segment.states.get((int) (orderId & SEGMENT_MASK));
+        if ((state & EXISTS_FLAG) == 0) {
+            throw new IllegalArgumentException("Unknown order " + orderId);
+        }
+        return state;
+    }
+
+    private Segment segment(long id, boolean create) {
+        long number = id >>> SEGMENT_BITS;
+        if (id <= 0 || number >= MAX_SEGMENTS) {
+            if (create) {
+                throw new IllegalStateException("Order store is full");
+            }
+            return null;
+        }
+        Segment segment = segments.get((int) number);
+        if (segment == null && create) {
+            segments.compareAndSet((int) number, null, new Segment());
+            segment = segments.get((int) number);
+        }
+        return segment;
+    }
+
+    private static void transition(Order.Status from, OrderEvent event, Order.Status to) {
+        TRANSITIONS[from.ordinal()][event.ordinal()] = to.ordinal();
+    }
+
+    private static final class Segment {
+        private final AtomicLongArray states = new AtomicLongArray(SEGMENT_SIZE);
+        // plain slots, the volatile write of the state publishes them
+        private final Object[] items = new Object[SEGMENT_SIZE];
+        private final AtomicReferenceArray<PaymentInfo> paymentInfos = new AtomicReferenceArray<>(SEGMENT_SIZE);
+
+        @SuppressWarnings("unchecked")
+        private List<Item> items(int index) {
+            return (List<Item>) items[index];
+        }
+    }
+}
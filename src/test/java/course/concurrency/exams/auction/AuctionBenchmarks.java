@@ -0,0 +1,86 @@
+package course.concurrency.exams.auction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuctionBenchmarks {
+
+    public static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final Notifier notifier = new Notifier() {
+        @Override
+        public void sendOutdatedMessage(Bid bid) {
+        }
+
+        @Override
+        public void sendOutdatedMessage(long bidId, long participantId, long price) {
+        }
+    };
+
+    private Auction optimistic;
+    private Auction pessimistic;
+    private AuctionOptimisticPrimitive primitive;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuctionBenchmarks.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .threads(THREADS)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        optimistic = new AuctionOptimistic(notifier);
+        pessimistic = new AuctionPessimistic(notifier);
+        primitive = new AuctionOptimisticPrimitive(notifier);
+    }
+
+    @TearDown
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    // same price pattern as AuctionTests: i - 1, i, i + 1
+    @State(Scope.Thread)
+    public static class Prices {
+        private long ticket;
+
+        long next() {
+            long next = ticket++;
+            return next / 3 + next % 3 - 1;
+        }
+    }
+
+    @Benchmark
+    public boolean optimistic(Prices prices) {
+        long value = prices.next();
+        return optimistic.propose(new Bid(value, value, value));
+    }
+
+    @Benchmark
+    public boolean pessimistic(Prices prices) {
+        long value = prices.next();
+        return pessimistic.propose(new Bid(value, value, value));
+    }
+
+    @Benchmark
+    public boolean optimisticPrimitive(Prices prices) {
+        long value = prices.next();
+        return primitive.propose(value, value, value);
+    }
+}
@@ -0,0 +1,106 @@
+package course.concurrency.exams.auction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuctionHouseBenchmarks {
+
+    // Change THREADS and ZIPF_EXPONENT to experiment
+    public static final int THREADS = 8;
+    public static final int LOTS = 1_000_000;
+    public static final double ZIPF_EXPONENT = 1.1;
+    public static final int SAMPLES = 1 << 20;
+
+    private final Notifier notifier = new Notifier() {
+        @Override
+        public void sendOutdatedMessage(Bid bid) {
+        }
+    };
+
+    private AuctionHouse auctionHouse;
+    private Map<Long, AuctionOptimistic> auctions;
+    private long[] lotIds;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuctionHouseBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .threads(THREADS)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        auctionHouse = new AuctionHouse(notifier, THREADS * 4, LOTS);
+        auctions = new ConcurrentHashMap<>(LOTS);
+        lotIds = zipf(LOTS, ZIPF_EXPONENT, SAMPLES);
+    }
+
+    @TearDown
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(SAMPLES);
+        private long price;
+
+        long nextLot(long[] lotIds) {
+            position = (position + 1) & (SAMPLES - 1);
+            return lotIds[position];
+        }
+
+        long nextPrice() {
+            price += ThreadLocalRandom.current().nextInt(3);
+            return price;
+        }
+    }
+
+    @Benchmark
+    public boolean auctionHouse(Cursor cursor) {
+        long lotId = cursor.nextLot(lotIds);
+        long price = cursor.nextPrice();
+        return auctionHouse.propose(lotId, new Bid(price, price, price));
+    }
+
+    @Benchmark
+    public boolean mapOfAuctions(Cursor cursor) {
+        long lotId = cursor.nextLot(lotIds);
+        long price = cursor.nextPrice();
+        return auctions.computeIfAbsent(lotId, id -> new AuctionOptimistic(notifier))
+                .propose(new Bid(price, price, price));
+    }
+
+    private static long[] zipf(int lots, double exponent, int samples) {
+        double[] cumulative = new double[lots];
+        double sum = 0;
+        for (int rank = 0; rank < lots; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        long[] result = new long[samples];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            result[i] = rank < 0 ? -rank - 1 : rank;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package course.concurrency.exams.auction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuctionHouseTests {
+
+    private static final int TEST_COUNT = 5;
+
+    private static final int LOTS = 1_000;
+    private static final int ITERATIONS = 100_000;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private ExecutorService executor;
+    private Notifier notifier;
+
+    @BeforeEach
+    public void setup() {
+        notifier = new Notifier();
+        executor = Executors.newFixedThreadPool(POOL_SIZE);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    public void testStrictlyHigherPriceWins() {
+        AuctionHouse auctionHouse = new AuctionHouse(notifier);
+
+        assertTrue(auctionHouse.propose(1L, new Bid(1L, 1L, 10L)));
+        assertFalse(auctionHouse.propose(1L, new Bid(2L, 2L, 10L)));
+        assertFalse(auctionHouse.propose(1L, new Bid(3L, 3L, 5L)));
+        assertTrue(auctionHouse.propose(2L, new Bid(4L, 4L, 5L)));
+
+        assertEquals(1L, auctionHouse.getLatestBid(1L).getId());
+        assertEquals(4L, auctionHouse.getLatestBid(2L).getId());
+        assertEquals(0L, auctionHouse.getLatestBid(3L).getPrice());
+        assertEquals(2, auctionHouse.getLotCount());
+    }
+
+    @Test
+    public void testZeroBidDoesNotCreateLot() {
+        AuctionHouse auctionHouse = new AuctionHouse(notifier);
+
+        assertFalse(auctionHouse.propose(1L, new Bid(1L, 1L, 0L)));
+        assertEquals(0, auctionHouse.getLotCount());
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testCorrectLatestBidPerLot() throws InterruptedException {
+        AuctionHouse auctionHouse = new AuctionHouse(notifier, 16, LOTS);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < ITERATIONS; it++) {
+                    long lotId = ThreadLocalRandom.current().nextInt(LOTS);
+                    long price = ThreadLocalRandom.current().nextLong(1, ITERATIONS);
+                    auctionHouse.propose(lotId, new Bid(price, lotId, price));
+                }
+                for (long lotId = 0; lotId < LOTS; lotId++) {
+                    auctionHouse.propose(lotId, new Bid(lotId, lotId, (long) ITERATIONS + lotId));
+                }
+            });
+        }
+
+        latch.countDown();
+        executor.shutdown();
+        executor.awaitTermination(20, TimeUnit.SECONDS);
+
+        assertEquals(LOTS, auctionHouse.getLotCount());
+        for (long lotId = 0; lotId < LOTS; lotId++) {
+            assertEquals(ITERATIONS + lotId, auctionHouse.getLatestBid(lotId).getPrice());
+        }
+    }
+}
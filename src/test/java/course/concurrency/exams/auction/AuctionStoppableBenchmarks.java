@@ -0,0 +1,113 @@
+package course.concurrency.exams.auction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuctionStoppableBenchmarks {
+
+    // Change PROPOSERS and STOP_PAUSE to experiment
+    public static final int PROPOSERS = 7;
+    public static final int STOPPERS = 1;
+    public static final long STOP_PAUSE = 1_000;
+
+    private final Notifier notifier = new Notifier() {
+        @Override
+        public void sendOutdatedMessage(Bid bid) {
+        }
+    };
+
+    private volatile AuctionStoppable pessimistic;
+    private volatile AuctionStoppable optimistic;
+    private volatile AuctionStoppable lockFree;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuctionStoppableBenchmarks.class.getName())
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        pessimistic = new AuctionStoppablePessimistic(notifier);
+        optimistic = new AuctionStoppableOptimistic(notifier);
+        lockFree = new AuctionStoppableLockFree(notifier);
+    }
+
+    @TearDown
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Prices {
+        private long price;
+
+        Bid next() {
+            price++;
+            return new Bid(price, price, price);
+        }
+    }
+
+    @Benchmark
+    @Group("pessimistic")
+    @GroupThreads(PROPOSERS)
+    public boolean proposePessimistic(Prices prices) {
+        return pessimistic.propose(prices.next());
+    }
+
+    @Benchmark
+    @Group("pessimistic")
+    @GroupThreads(STOPPERS)
+    public Bid stopPessimistic() {
+        Blackhole.consumeCPU(STOP_PAUSE);
+        Bid bid = pessimistic.stopAuction();
+        pessimistic = new AuctionStoppablePessimistic(notifier);
+        return bid;
+    }
+
+    @Benchmark
+    @Group("optimistic")
+    @GroupThreads(PROPOSERS)
+    public boolean proposeOptimistic(Prices prices) {
+        return optimistic.propose(prices.next());
+    }
+
+    @Benchmark
+    @Group("optimistic")
+    @GroupThreads(STOPPERS)
+    public Bid stopOptimistic() {
+        Blackhole.consumeCPU(STOP_PAUSE);
+        Bid bid = optimistic.stopAuction();
+        optimistic = new AuctionStoppableOptimistic(notifier);
+        return bid;
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(PROPOSERS)
+    public boolean proposeLockFree(Prices prices) {
+        return lockFree.propose(prices.next());
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(STOPPERS)
+    public Bid stopLockFree() {
+        Blackhole.consumeCPU(STOP_PAUSE);
+        Bid bid = lockFree.stopAuction();
+        lockFree = new AuctionStoppableLockFree(notifier);
+        return bid;
+    }
+}
@@ -3,9 +3,13 @@ package course.concurrency.exams.auction;
 import org.junit.jupiter.api.*;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AuctionStoppableTests {
 
@@ -57,6 +61,12 @@ public class AuctionStoppableTests {
         testCorrectLatestBid(optimistic, "optimistic");
     }
 
+    @RepeatedTest(TEST_COUNT)
+    public void testLockFree() throws InterruptedException {
+        AuctionStoppable lockFree = new AuctionStoppableLockFree(notifier);
+        testCorrectLatestBid(lockFree, "lock-free");
+    }
+
     public void testCorrectLatestBid(AuctionStoppable auction, String tag) throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
 
@@ -97,9 +107,44 @@ public class AuctionStoppableTests {
         testStoppedAuction(auction);
     }
 
+    @Test
+    public void testStoppedAuctionLockFree() throws InterruptedException {
+        AuctionStoppable auction = new AuctionStoppableLockFree(notifier);
+        testStoppedAuction(auction);
+    }
+
+    @Test
+    public void testStopLockFreeWhileBidsKeepComing() throws InterruptedException {
+        AuctionStoppable auction = new AuctionStoppableLockFree(notifier);
+        AtomicLong price = new AtomicLong();
+        AtomicBoolean accepting = new AtomicBoolean(true);
+        int proposers = Math.max(2, POOL_SIZE);
+        ExecutorService bidders = Executors.newFixedThreadPool(proposers);
+        for (int i = 0; i < proposers; i++) {
+            bidders.submit(() -> {
+                while (accepting.get()) {
+                    long value = price.incrementAndGet();
+                    auction.propose(new Bid(value, value, value));
+                }
+            });
+        }
+        while (price.get() < 10_000) {
+            Thread.onSpinWait();
+        }
+
+        Bid stopped = auction.stopAuction();
+        accepting.set(false);
+        bidders.shutdown();
+        assertTrue(bidders.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(stopped, auction.getLatestBid());
+        assertFalse(auction.propose(new Bid(Long.MAX_VALUE, 1L, Long.MAX_VALUE)));
+    }
+
     public void testStoppedAuction(AuctionStoppable auction) throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
-        int priceToStop = ITERATIONS;
+        // prices only go up to BID_COUNT / 3, which is below ITERATIONS with fewer than three threads
+        int priceToStop = Math.min(ITERATIONS, BID_COUNT / 3 - 1);
         AtomicReference<Bid> latestBidWhenStopped = new AtomicReference<>();
 
         for (int i = 0; i < POOL_SIZE; i++) {
@@ -59,6 +59,32 @@ public class AuctionTests {
         testCorrectLatestBid(auction, "pessimistic");
     }
 
+    @RepeatedTest(TEST_COUNT)
+    public void testOptimisticPrimitive() throws InterruptedException {
+        Auction auction = new AuctionOptimisticPrimitive(notifier);
+        testCorrectLatestBid(auction, "optimistic primitive");
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testAdaptive() throws InterruptedException {
+        AuctionAdaptive auction = new AuctionAdaptive(notifier);
+        testCorrectLatestBid(auction, "adaptive");
+        addCounters(auction, "adaptive");
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testAdaptiveCombining() throws InterruptedException {
+        AuctionAdaptive auction = new AuctionAdaptive(notifier, 0);
+        testCorrectLatestBid(auction, "adaptive combining");
+        addCounters(auction, "adaptive combining");
+    }
+
+    private void addCounters(AuctionAdaptive auction, String tag) {
+        STAT.addCounter(tag, "casRetries", auction.getCasRetries());
+        STAT.addCounter(tag, "combinedBids", auction.getCombinedBids());
+        STAT.addCounter(tag, "combinerPasses", auction.getCombinerPasses());
+    }
+
     public void testCorrectLatestBid(Auction auction, String tag) throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
         for (int i = 0; i < POOL_SIZE; i++) {
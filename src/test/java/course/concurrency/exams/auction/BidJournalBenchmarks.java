@@ -0,0 +1,82 @@
+package course.concurrency.exams.auction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// every iteration appends BATCH accepted bids, so 1 ms per iteration is 1 ns per bid
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = BidJournalBenchmarks.BATCH)
+@Measurement(iterations = 10, batchSize = BidJournalBenchmarks.BATCH)
+public class BidJournalBenchmarks {
+
+    public static final int BATCH = 1_000_000;
+
+    private final Notifier notifier = new Notifier() {
+        @Override
+        public void sendOutdatedMessage(Bid bid) {
+        }
+    };
+
+    private Path file;
+    private BidJournal journal;
+    private Auction plain;
+    private Auction journaled;
+    private long price;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BidJournalBenchmarks.class.getSimpleName())
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        file = Files.createTempFile("bids", ".journal");
+        journal = new BidJournal(file, BATCH);
+        plain = new AuctionOptimistic(notifier);
+        journaled = new JournaledAuction(new AuctionOptimistic(notifier), journal, 1L);
+        price = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.delete(file);
+    }
+
+    @TearDown
+    public void shutdown() {
+        notifier.shutdown();
+    }
+
+    @Benchmark
+    public boolean proposePlain() {
+        price++;
+        return plain.propose(new Bid(price, price, price));
+    }
+
+    @Benchmark
+    public boolean proposeJournaled() {
+        price++;
+        return journaled.propose(new Bid(price, price, price));
+    }
+
+    @Benchmark
+    public void append() {
+        price++;
+        journal.append(1L, new Bid(price, price, price));
+    }
+}
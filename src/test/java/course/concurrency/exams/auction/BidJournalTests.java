@@ -0,0 +1,131 @@
+package course.concurrency.exams.auction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BidJournalTests {
+
+    private static final int ITERATIONS = 100_000;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    @TempDir
+    Path dir;
+
+    private Notifier notifier;
+
+    @BeforeEach
+    public void setup() {
+        notifier = new Notifier();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    public void testRecoverLatestBidAfterRestart() throws InterruptedException {
+        Path file = dir.resolve("bids.journal");
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicLong price = new AtomicLong();
+
+        try (BidJournal journal = new BidJournal(file, ITERATIONS * POOL_SIZE)) {
+            Auction auction = new JournaledAuction(new AuctionOptimistic(notifier), journal, 7L);
+            for (int i = 0; i < POOL_SIZE; i++) {
+                executor.submit(() -> {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException ignored) {
+
+                    }
+                    for (int it = 0; it < ITERATIONS; it++) {
+                        long value = price.incrementAndGet();
+                        auction.propose(new Bid(value, value, value));
+                    }
+                });
+            }
+            latch.countDown();
+            executor.shutdown();
+            executor.awaitTermination(20, TimeUnit.SECONDS);
+
+            assertEquals((long) ITERATIONS * POOL_SIZE, auction.getLatestBid().getPrice());
+        }
+
+        try (BidJournal journal = new BidJournal(file, ITERATIONS * POOL_SIZE)) {
+            JournaledAuction recovered = JournaledAuction.recover(journal, 7L, notifier);
+
+            assertEquals((long) ITERATIONS * POOL_SIZE, recovered.getLatestBid().getPrice());
+            assertEquals(0L, JournaledAuction.recover(journal, 8L, notifier).getLatestBid().getPrice());
+        }
+    }
+
+    @Test
+    public void testAppendContinuesAfterReopen() {
+        Path file = dir.resolve("bids.journal");
+        try (BidJournal journal = new BidJournal(file, 16)) {
+            journal.append(1L, new Bid(1L, 10L, 100L));
+            journal.append(2L, new Bid(2L, 20L, 200L));
+        }
+        try (BidJournal journal = new BidJournal(file, 16)) {
+            assertEquals(2, journal.size());
+            journal.append(1L, new Bid(3L, 30L, 300L));
+
+            Bid latest = journal.latestBid(1L);
+            assertEquals(3L, latest.getId());
+            assertEquals(30L, latest.getParticipantId());
+            assertEquals(300L, latest.getPrice());
+            assertEquals(3, journal.size());
+        }
+    }
+
+    @Test
+    public void testFullJournal() {
+        try (BidJournal journal = new BidJournal(dir.resolve("bids.journal"), 1)) {
+            journal.append(1L, new Bid(1L, 1L, 1L));
+            assertThrows(IllegalStateException.class, () -> journal.append(1L, new Bid(2L, 2L, 2L)));
+        }
+    }
+
+    @Test
+    public void testFullJournalRejectsBidBeforeAuction() {
+        try (BidJournal journal = new BidJournal(dir.resolve("bids.journal"), 1)) {
+            Auction auction = new JournaledAuction(new AuctionOptimistic(notifier), journal, 1L);
+            assertTrue(auction.propose(new Bid(1L, 1L, 10L)));
+
+            assertThrows(IllegalStateException.class, () -> auction.propose(new Bid(2L, 2L, 20L)));
+            assertEquals(10L, auction.getLatestBid().getPrice());
+            assertFalse(auction.propose(new Bid(3L, 3L, 5L)));
+        }
+    }
+
+    @Test
+    public void testSkipCancelledSlots() {
+        Path file = dir.resolve("bids.journal");
+        try (BidJournal journal = new BidJournal(file, 16)) {
+            journal.cancel(journal.reserve());
+            journal.append(1L, new Bid(1L, 10L, 100L));
+        }
+        try (BidJournal journal = new BidJournal(file, 16)) {
+            List<Bid> bids = new ArrayList<>();
+            journal.replay((lotId, bid) -> bids.add(bid));
+
+            assertEquals(2, journal.size());
+            assertEquals(1, bids.size());
+            assertEquals(100L, journal.latestBid(1L).getPrice());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package course.concurrency.exams.auction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingNotifierTests {
+
+    private CoalescingNotifier notifier;
+
+    @AfterEach
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    public void testCoalescesByParticipant() throws InterruptedException {
+        Map<Long, Long> sent = new ConcurrentHashMap<>();
+        CountDownLatch batchSent = new CountDownLatch(1);
+        notifier = new CoalescingNotifier(500, 1_000, 10, 1, 0) {
+            @Override
+            protected void send(List<Bid> batch) {
+                batch.forEach(bid -> sent.put(bid.getParticipantId(), bid.getPrice()));
+                batchSent.countDown();
+            }
+        };
+
+        for (long price = 1; price <= 100; price++) {
+            notifier.sendOutdatedMessage(new Bid(price, price % 10, price));
+        }
+
+        assertTrue(batchSent.await(5, TimeUnit.SECONDS));
+        assertEquals(10, sent.size());
+        for (long participantId = 0; participantId < 10; participantId++) {
+            assertEquals(90 + (participantId == 0 ? 10 : participantId), sent.get(participantId));
+        }
+        assertEquals(90, notifier.getCoalescedCount());
+        assertEquals(0, notifier.getDroppedCount());
+    }
+
+    @Test
+    public void testNotifiesOutbidParticipantsOfAuction() throws InterruptedException {
+        Map<Long, Long> sent = new ConcurrentHashMap<>();
+        CountDownLatch batchSent = new CountDownLatch(1);
+        notifier = new CoalescingNotifier(10, 1_000, 10, 1, 0) {
+            @Override
+            protected void send(List<Bid> batch) {
+                batch.forEach(bid -> sent.put(bid.getParticipantId(), bid.getPrice()));
+                if (sent.containsKey(1L)) {
+                    batchSent.countDown();
+                }
+            }
+        };
+        Auction auction = new AuctionOptimistic(notifier);
+
+        assertTrue(auction.propose(new Bid(1L, 1L, 10L)));
+        assertTrue(auction.propose(new Bid(2L, 2L, 20L)));
+
+        assertTrue(batchSent.await(5, TimeUnit.SECONDS));
+        assertEquals(10L, sent.get(1L));
+    }
+
+    @Test
+    public void testBackpressureBoundsQueueDepth() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        notifier = new CoalescingNotifier(10, 5, 1, 1, 0) {
+            @Override
+            protected void send(List<Bid> batch) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        // the first flushes occupy the sender, its queue and finally the flusher itself
+        for (long participantId = 0; participantId < 1_000; participantId++) {
+            notifier.sendOutdatedMessage(new Bid(participantId, participantId, participantId));
+            assertTrue(notifier.getQueueDepth() <= 5);
+        }
+
+        assertTrue(notifier.getDroppedCount() > 0);
+        release.countDown();
+    }
+
+    @Test
+    public void testSendLatencyIsMeasured() throws InterruptedException {
+        notifier = new CoalescingNotifier(10, 1_000, 10, 2, 50);
+
+        for (long participantId = 0; participantId < 100; participantId++) {
+            notifier.sendOutdatedMessage(new Bid(participantId, participantId, participantId));
+        }
+        notifier.shutdownWithTimeout();
+
+        assertEquals(100, notifier.getSentMessages());
+        assertEquals(0, notifier.getQueueDepth());
+        assertTrue(notifier.getSentBatches() >= 1);
+        assertTrue(notifier.getAverageSendLatencyMillis() >= 50);
+        assertTrue(notifier.getMaxSendLatencyMillis() >= 50);
+    }
+}
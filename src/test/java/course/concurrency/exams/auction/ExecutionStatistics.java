@@ -1,8 +1,11 @@
 package course.concurrency.exams.auction;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.stream.Collectors.summarizingLong;
@@ -10,18 +13,35 @@ import static java.util.stream.Collectors.summarizingLong;
 public class ExecutionStatistics {
 
     private ConcurrentHashMap<String, List<Long>> stat = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, Map<String, Long>> counters = new ConcurrentHashMap<>();
 
     public void addData(String method, Long duration) {
         stat.putIfAbsent(method, new ArrayList<>());
         stat.get(method).add(duration);
     }
 
+    public void addCounter(String method, String counter, long value) {
+        counters.computeIfAbsent(method, k -> new TreeMap<>()).merge(counter, value, Long::sum);
+    }
+
     public void printStatistics() {
-        stat.forEach((k, v) -> System.out.println(k + ": " + listToStat(v)));
+        stat.entrySet().stream()
+                .sorted(Comparator.comparingDouble(e -> average(e.getValue())))
+                .forEach(e -> System.out.println(e.getKey() + ": " + listToStat(e.getValue())
+                        + countersToStat(e.getKey())));
     }
 
     private String listToStat(List<Long> values) {
         LongSummaryStatistics stat = values.stream().collect(summarizingLong(Long::valueOf));
         return String.format("%.0f (%d-%d)", stat.getAverage(), stat.getMin(), stat.getMax());
     }
+
+    private String countersToStat(String method) {
+        Map<String, Long> values = counters.get(method);
+        return values == null ? "" : " " + values;
+    }
+
+    private double average(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).average().orElse(0);
+    }
 }
@@ -0,0 +1,91 @@
+package course.concurrency.exams.auction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LeaderboardBenchmarks {
+
+    // Change WRITERS and TOP to experiment
+    public static final int WRITERS = 8;
+    public static final int READERS = 1;
+    public static final int TOP = 10;
+    public static final int PARTICIPANTS = 10_000;
+
+    private final Notifier notifier = new Notifier() {
+        @Override
+        public void sendOutdatedMessage(Bid bid) {
+        }
+    };
+
+    private LeaderboardAuction optimistic;
+    private LeaderboardAuction pessimistic;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LeaderboardBenchmarks.class.getName())
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        optimistic = new LeaderboardAuction(new AuctionOptimistic(notifier), TOP);
+        pessimistic = new LeaderboardAuction(new AuctionPessimistic(notifier), TOP);
+    }
+
+    @TearDown
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Prices {
+        private long price;
+
+        Bid next() {
+            price += ThreadLocalRandom.current().nextInt(1, 4);
+            long participantId = ThreadLocalRandom.current().nextInt(PARTICIPANTS);
+            return new Bid(price, participantId, price);
+        }
+    }
+
+    @Benchmark
+    @Group("optimistic")
+    @GroupThreads(WRITERS)
+    public boolean proposeOptimistic(Prices prices) {
+        return optimistic.propose(prices.next());
+    }
+
+    @Benchmark
+    @Group("optimistic")
+    @GroupThreads(READERS)
+    public List<Bid> snapshotOptimistic() {
+        return optimistic.getTopBids();
+    }
+
+    @Benchmark
+    @Group("pessimistic")
+    @GroupThreads(WRITERS)
+    public boolean proposePessimistic(Prices prices) {
+        return pessimistic.propose(prices.next());
+    }
+
+    @Benchmark
+    @Group("pessimistic")
+    @GroupThreads(READERS)
+    public List<Bid> snapshotPessimistic() {
+        return pessimistic.getTopBids();
+    }
+}
@@ -0,0 +1,129 @@
+package course.concurrency.exams.auction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LeaderboardTests {
+
+    private static final int TEST_COUNT = 5;
+    private static final int ITERATIONS = 100_000;
+    private static final int PARTICIPANTS = 1_000;
+    private static final int TOP = 10;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private Notifier notifier;
+
+    @BeforeEach
+    public void setup() {
+        notifier = new Notifier();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    public void testKeepsBestBidPerParticipant() {
+        Leaderboard leaderboard = new Leaderboard(3);
+
+        assertTrue(leaderboard.offer(new Bid(1L, 1L, 10L)));
+        assertTrue(leaderboard.offer(new Bid(2L, 2L, 20L)));
+        assertTrue(leaderboard.offer(new Bid(3L, 1L, 30L)));
+        assertFalse(leaderboard.offer(new Bid(4L, 1L, 25L)));
+        assertTrue(leaderboard.offer(new Bid(5L, 3L, 15L)));
+        assertTrue(leaderboard.offer(new Bid(6L, 4L, 16L)));
+        assertFalse(leaderboard.offer(new Bid(7L, 5L, 16L)));
+
+        assertEquals(List.of(3L, 2L, 6L), ids(leaderboard.getTopBids()));
+    }
+
+    @Test
+    public void testIgnoresRejectedBids() {
+        LeaderboardAuction auction = new LeaderboardAuction(new AuctionOptimistic(notifier), 3);
+
+        assertTrue(auction.propose(new Bid(1L, 1L, 20L)));
+        assertFalse(auction.propose(new Bid(2L, 2L, 10L)));
+        assertTrue(auction.propose(new Bid(3L, 3L, 30L)));
+        assertFalse(auction.propose(new Bid(4L, 1L, 25L)));
+
+        assertEquals(List.of(3L, 1L), ids(auction.getTopBids()));
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testOptimistic() throws InterruptedException {
+        testTopBids(new LeaderboardAuction(new AuctionOptimistic(notifier), TOP));
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testPessimistic() throws InterruptedException {
+        testTopBids(new LeaderboardAuction(new AuctionPessimistic(notifier), TOP));
+    }
+
+    private void testTopBids(LeaderboardAuction auction) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch latch = new CountDownLatch(1);
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        ConcurrentHashMap<Long, Long> best = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < ITERATIONS; it++) {
+                    long participantId = ThreadLocalRandom.current().nextInt(PARTICIPANTS);
+                    long price = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+                    if (auction.propose(new Bid(price, participantId, price))) {
+                        best.merge(participantId, price, Math::max);
+                    }
+                }
+            });
+        }
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                List<Bid> snapshot = auction.getTopBids();
+                Set<Long> participants = new HashSet<>();
+                for (int i = 0; i < snapshot.size(); i++) {
+                    if (!participants.add(snapshot.get(i).getParticipantId())
+                            || i > 0 && snapshot.get(i - 1).getPrice() < snapshot.get(i).getPrice()) {
+                        errors.add("Inconsistent snapshot " + ids(snapshot));
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        latch.countDown();
+        executor.shutdown();
+        executor.awaitTermination(20, TimeUnit.SECONDS);
+        done.set(true);
+        reader.join();
+
+        List<Long> expected = best.values().stream()
+                .sorted((a, b) -> Long.compare(b, a)).limit(TOP).collect(Collectors.toList());
+        assertEquals(expected, auction.getTopBids().stream().map(Bid::getPrice).collect(Collectors.toList()));
+        assertEquals(expected.get(0), auction.getLatestBid().getPrice());
+        assertTrue(errors.isEmpty(), String.valueOf(errors.peek()));
+    }
+
+    private static List<Long> ids(List<Bid> bids) {
+        return bids.stream().map(Bid::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package course.concurrency.exams.auction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTests {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private Notifier notifier;
+    private TimingWheel wheel;
+
+    @BeforeEach
+    public void setup() {
+        notifier = new Notifier();
+        wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 16, 3, clock::get);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        wheel.close();
+        notifier.shutdown();
+    }
+
+    @Test
+    public void testExpiresNeverEarlyAndAtMostOneTickLate() {
+        int count = 100_000;
+        long horizon = 16 * 16 * 16 * 4;
+        long[] deadlines = new long[count];
+        long[] fired = new long[count];
+        for (int i = 0; i < count; i++) {
+            int task = i;
+            deadlines[i] = ThreadLocalRandom.current().nextLong(1, horizon * TICK);
+            wheel.schedule(() -> fired[task] = clock.get(), deadlines[i]);
+        }
+
+        for (long now = 0; now <= horizon + 1; now++) {
+            clock.set(now * TICK);
+            wheel.advance();
+        }
+
+        for (int i = 0; i < count; i++) {
+            assertTrue(fired[i] >= deadlines[i], "Timeout fired too early");
+            assertTrue(fired[i] - deadlines[i] <= TICK, "Timeout fired too late");
+        }
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void testCancelledTimeoutsNeverFire() {
+        LongAdder fired = new LongAdder();
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            timeouts.add(wheel.schedule(fired::increment, i * 10 * TICK));
+        }
+        clock.set(5_000 * TICK);
+        wheel.advance();
+        timeouts.forEach(TimingWheel.Timeout::cancel);
+
+        clock.set(20_000 * TICK);
+        wheel.advance();
+
+        assertEquals(500, fired.sum());
+        assertEquals(0, wheel.getPendingCount());
+        assertTrue(timeouts.get(0).isExpired());
+        assertTrue(timeouts.get(999).isCancelled());
+    }
+
+    @Test
+    public void testStartedWheelTicksByItself() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (TimingWheel started = new TimingWheel(1, TimeUnit.MILLISECONDS).start()) {
+            started.schedule(latch::countDown, started.now() + TimeUnit.MILLISECONDS.toNanos(50));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testAuctionClosesAtDeadline() {
+        TimedAuction auction = new TimedAuction(new AuctionStoppableLockFree(notifier), wheel, 100 * TICK);
+
+        clock.set(50 * TICK);
+        wheel.advance();
+        assertTrue(auction.propose(new Bid(1L, 1L, 10L)));
+
+        clock.set(100 * TICK);
+        wheel.advance();
+        assertFalse(auction.propose(new Bid(2L, 2L, 20L)));
+        assertEquals(10L, auction.getLatestBid().getPrice());
+    }
+
+    @Test
+    public void testLateBidExtendsDeadline() {
+        TimedAuction auction = new TimedAuction(new AuctionStoppableLockFree(notifier), wheel, 100 * TICK,
+                10 * TICK, 30 * TICK, TimeUnit.NANOSECONDS);
+
+        clock.set(80 * TICK);
+        wheel.advance();
+        assertTrue(auction.propose(new Bid(1L, 1L, 10L)));
+        assertEquals(100 * TICK, auction.getDeadlineNanos());
+
+        clock.set(95 * TICK);
+        wheel.advance();
+        assertTrue(auction.propose(new Bid(2L, 2L, 20L)));
+        assertEquals(125 * TICK, auction.getDeadlineNanos());
+
+        clock.set(110 * TICK);
+        wheel.advance();
+        assertTrue(auction.propose(new Bid(3L, 3L, 30L)));
+
+        clock.set(125 * TICK);
+        wheel.advance();
+        assertFalse(auction.propose(new Bid(4L, 4L, 40L)));
+        assertEquals(30L, auction.getLatestBid().getPrice());
+        assertEquals(0, wheel.getPendingCount());
+    }
+}
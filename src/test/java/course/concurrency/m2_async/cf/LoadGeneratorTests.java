@@ -0,0 +1,102 @@
+package course.concurrency.m2_async.cf;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadGeneratorTests {
+
+    private static final long MICROS = 20_000;
+
+    private final String initialWork = LoadGenerator.getWork();
+
+    @AfterEach
+    public void tearDown() {
+        LoadGenerator.setWork(initialWork);
+    }
+
+    @ParameterizedTest
+    @EnumSource(LoadKernel.class)
+    public void shouldTakeCalibratedTime(LoadKernel kernel) {
+        kernel.calibrate();
+        int runs = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            kernel.run(MICROS);
+        }
+        long average = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / runs;
+
+        // garbage collection is part of the calibrated cost, so only the average over several runs matches it
+        assertTrue(average >= MICROS / 2 && average <= MICROS * 3, kernel + " took " + average + "us");
+    }
+
+    @ParameterizedTest
+    @EnumSource(LoadKernel.class)
+    public void shouldCalibrateToPositiveRate(LoadKernel kernel) {
+        assertTrue(kernel.calibrate() > 0, kernel.toString());
+        assertTrue(kernel.getUnitsPerMicro() > 0, kernel.toString());
+    }
+
+    @Test
+    public void shouldNotAllocateInCpuKernel() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        LoadKernel.CPU.run(MICROS);
+        LoadKernel.ALLOCATION.run(MICROS);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        LoadKernel.CPU.run(MICROS);
+        long cpu = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        LoadKernel.ALLOCATION.run(MICROS);
+        long allocation = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(cpu < 1024, "CPU kernel allocated " + cpu + " bytes");
+        assertTrue(allocation > 1024 * 1024, "Allocation kernel allocated " + allocation + " bytes");
+    }
+
+    @Test
+    public void shouldStopSleepingWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            long start = System.nanoTime();
+            LoadKernel.SLEEP.run(TimeUnit.SECONDS.toMicros(10));
+            long elapsed = System.nanoTime() - start;
+
+            assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1), "Slept " + elapsed + " ns");
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void shouldRunConfiguredWork() {
+        LoadGenerator.setWork("sleep:20000, cpu:10000");
+        assertEquals("sleep:20000,cpu:10000", LoadGenerator.getWork());
+
+        long start = System.nanoTime();
+        LoadGenerator.work();
+        long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        assertTrue(elapsed >= 20_000, "Took " + elapsed + "us");
+    }
+
+    @Test
+    public void shouldRejectInvalidWork() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.setWork("cpu"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.setWork("gpu:10"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.setWork("cpu:-1"));
+        assertEquals(initialWork, LoadGenerator.getWork());
+    }
+}
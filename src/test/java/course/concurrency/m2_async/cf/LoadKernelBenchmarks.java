@@ -0,0 +1,44 @@
+package course.concurrency.m2_async.cf;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoadKernelBenchmarks {
+
+    // Change MICROS to experiment, every kernel should score close to it
+    public static final long MICROS = 1_000;
+
+    @Param({"CPU", "MEMORY", "ALLOCATION", "SLEEP", "BOXED_STREAM"})
+    public LoadKernel kernel;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoadKernelBenchmarks.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        kernel.calibrate();
+    }
+
+    @Benchmark
+    public void run() {
+        kernel.run(MICROS);
+    }
+}
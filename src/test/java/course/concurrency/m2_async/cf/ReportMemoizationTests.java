@@ -0,0 +1,193 @@
+package course.concurrency.m2_async.cf;
+
+import course.concurrency.m2_async.cf.report.Memoization;
+import course.concurrency.m2_async.cf.report.MemoizedStage;
+import course.concurrency.m2_async.cf.report.Others;
+import course.concurrency.m2_async.cf.report.ReportServiceCF;
+import course.concurrency.m2_async.cf.report.ReportServiceExecutors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportMemoizationTests {
+
+    private static final int CALLERS = 16;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger computed = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+        callers.shutdownNow();
+        refresher.shutdownNow();
+    }
+
+    @Test
+    public void shouldRecomputeOnlyWhenVersionChanges() {
+        MemoizedStage<Integer> stage = new MemoizedStage<>(computed::incrementAndGet, version::get);
+
+        assertEquals(1, stage.get());
+        assertEquals(1, stage.get());
+        version.incrementAndGet();
+        assertEquals(2, stage.get());
+        assertEquals(2, stage.get());
+        assertEquals(2, stage.getComputations());
+    }
+
+    @RepeatedTest(10)
+    public void shouldRefreshStaleEntryOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoizedStage<Integer> stage = new MemoizedStage<>(() -> {
+            int value = computed.incrementAndGet();
+            if (value > 1) {
+                await(release);
+            }
+            return value;
+        }, version::get, refresher, true);
+        assertEquals(1, stage.get());
+        version.incrementAndGet();
+
+        List<Integer> stale = callConcurrently(stage::get);
+
+        assertEquals(CALLERS, stale.stream().filter(value -> value == 1).count(), "Stale value is served at once");
+        release.countDown();
+        awaitValue(stage, 2);
+        assertEquals(2, stage.getComputations());
+    }
+
+    @RepeatedTest(10)
+    public void shouldShareRecomputationOfChangedVersion() throws Exception {
+        MemoizedStage<Integer> stage = new MemoizedStage<>(() -> {
+            sleep(50);
+            return computed.incrementAndGet();
+        }, version::get);
+        stage.get();
+        version.incrementAndGet();
+
+        List<Integer> fresh = callConcurrently(stage::get);
+
+        assertTrue(fresh.stream().allMatch(value -> value == 2), "Callers should share one computation " + fresh);
+        assertEquals(2, stage.getComputations());
+    }
+
+    @Test
+    public void shouldRecomputeWhenVersionChangesDuringComputation() {
+        MemoizedStage<Integer> stage = new MemoizedStage<>(() -> {
+            int value = computed.incrementAndGet();
+            if (value == 1) {
+                version.incrementAndGet();
+            }
+            return value;
+        }, version::get);
+
+        assertEquals(1, stage.get());
+        assertEquals(2, stage.get());
+        assertEquals(2, stage.get());
+    }
+
+    @Test
+    public void shouldKeepStaleValueWhenRefreshFails() throws InterruptedException {
+        MemoizedStage<Integer> stage = new MemoizedStage<>(() -> {
+            if (computed.incrementAndGet() > 1) {
+                throw new IllegalStateException();
+            }
+            return 1;
+        }, version::get, refresher, true);
+        stage.get();
+        version.incrementAndGet();
+
+        assertEquals(1, stage.get());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, stage.get());
+        assertTrue(stage.getComputations() >= 2);
+    }
+
+    @Test
+    public void shouldMemoizeReports() {
+        String work = LoadGenerator.getWork();
+        LoadGenerator.setWork("cpu:1000");
+        ReportServiceCF cf = new ReportServiceCF();
+        ReportServiceExecutors executors = new ReportServiceExecutors();
+        try {
+            cf.setMemoization(Memoization.VERSIONED);
+            executors.setMemoization(Memoization.VERSIONED);
+
+            Others.Report cfReport = cf.getReport();
+            Others.Report executorsReport = executors.getReport();
+            assertSame(cfReport, cf.getReport());
+            assertSame(executorsReport, executors.getReport());
+
+            cf.invalidateItems();
+            executors.invalidateCustomers();
+            assertNotSame(cfReport, cf.getReport());
+            assertNotSame(executorsReport, executors.getReport());
+
+            cf.setMemoization(Memoization.OFF);
+            assertNotSame(cf.getReport(), cf.getReport());
+        } finally {
+            cf.shutdown();
+            executors.shutdown();
+            LoadGenerator.setWork(work);
+        }
+    }
+
+    private <T> List<T> callConcurrently(Callable<T> call) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = IntStream.range(0, CALLERS)
+                .mapToObj(i -> callers.submit(() -> {
+                    await(start);
+                    return call.call();
+                }))
+                .collect(Collectors.toList());
+        start.countDown();
+        List<T> values = new ArrayList<>();
+        for (Future<T> result : results) {
+            values.add(result.get(5, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    private static void awaitValue(MemoizedStage<Integer> stage, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (stage.get() != expected && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(expected, stage.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
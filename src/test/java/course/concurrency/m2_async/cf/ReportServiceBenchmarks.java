@@ -0,0 +1,80 @@
+package course.concurrency.m2_async.cf;
+
+import course.concurrency.m2_async.cf.report.ReportServiceCF;
+import course.concurrency.m2_async.executors.ComputeExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportServiceBenchmarks {
+
+    @Param({"commonPool", "fixed", "compute"})
+    public String executorType;
+
+    // reports requested at the same time
+    @Param({"1", "4", "16"})
+    public int reports;
+
+    // see LoadGenerator, the second one is a stage that computes and then waits for I/O
+    @Param({"cpu:50000", "cpu:10000,sleep:40000"})
+    public String load;
+
+    private ExecutorService executor;
+    private ExecutorService callers;
+    private ReportServiceCF reportService;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReportServiceBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        LoadGenerator.setWork(load);
+        switch (executorType) {
+            case "commonPool":
+                executor = ForkJoinPool.commonPool();
+                break;
+            case "fixed":
+                // the pool of ReportServiceExecutors
+                executor = Executors.newFixedThreadPool(12);
+                break;
+            default:
+                executor = new ComputeExecutor("report");
+        }
+        reportService = new ReportServiceCF(executor);
+        callers = Executors.newFixedThreadPool(reports);
+    }
+
+    @TearDown
+    public void tearDown() {
+        callers.shutdown();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void concurrentReports() {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[reports];
+        for (int i = 0; i < reports; i++) {
+            results[i] = CompletableFuture.runAsync(reportService::getReport, callers);
+        }
+        CompletableFuture.allOf(results).join();
+    }
+}
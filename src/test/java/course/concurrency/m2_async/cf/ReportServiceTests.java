@@ -34,5 +34,6 @@ public class ReportServiceTests {
         System.out.println(((ThreadPoolExecutor) reportService.getExecutor()).getPoolSize());
         long end = System.currentTimeMillis();
         System.out.println("Execution time: " + (end - start));
+        reportService.getLatencies().forEach((stage, latency) -> System.out.println(stage + ": " + latency));
     }
 }
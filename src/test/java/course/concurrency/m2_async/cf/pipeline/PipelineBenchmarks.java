@@ -0,0 +1,89 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import course.concurrency.m2_async.cf.LoadGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PipelineBenchmarks {
+
+    // every stage of a layer depends on every stage of the previous one
+    @Param({"2", "8"})
+    public int width;
+
+    @Param({"2", "4"})
+    public int depth;
+
+    private final ExecutorService executor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private Pipeline pipeline;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PipelineBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<?>[] previous = new Stage<?>[0];
+        for (int layer = 0; layer < depth; layer++) {
+            Stage<?>[] current = new Stage<?>[width];
+            for (int i = 0; i < width; i++) {
+                current[i] = builder.stage(layer + "-" + i, inputs -> work(), previous);
+            }
+            previous = current;
+        }
+        builder.stage("report", inputs -> Boolean.TRUE, previous);
+        pipeline = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Object handWritten() {
+        List<CompletableFuture<Object>> previous = new ArrayList<>();
+        for (int layer = 0; layer < depth; layer++) {
+            CompletableFuture<Void> ready = CompletableFuture.allOf(previous.toArray(new CompletableFuture<?>[0]));
+            List<CompletableFuture<Object>> current = new ArrayList<>(width);
+            for (int i = 0; i < width; i++) {
+                current.add(ready.thenApplyAsync(ignored -> work(), executor));
+            }
+            previous = current;
+        }
+        return CompletableFuture.allOf(previous.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> Boolean.TRUE)
+                .join();
+    }
+
+    @Benchmark
+    public Object pipeline() {
+        return pipeline.run(executor).join();
+    }
+
+    private static Object work() {
+        LoadGenerator.work();
+        return Boolean.TRUE;
+    }
+}
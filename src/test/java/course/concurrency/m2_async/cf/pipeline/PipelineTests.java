@@ -0,0 +1,135 @@
+package course.concurrency.m2_async.cf.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldPassResultsToDependents() {
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<Integer> a = builder.stage("a", inputs -> 2);
+        Stage<Integer> b = builder.stage("b", inputs -> 3);
+        Stage<Integer> product = builder.stage("product", inputs -> inputs.get(a) * inputs.get(b), a, b);
+        Stage<String> text = builder.stage("text", inputs -> "=" + inputs.get(product), product);
+
+        PipelineResult result = builder.build().run(executor).join();
+
+        assertEquals(6, result.get(product));
+        assertEquals("=6", result.get(text));
+        assertEquals(4, result.getTimings().size());
+    }
+
+    @Test
+    public void shouldRunIndependentStagesInParallel() {
+        int width = 4;
+        CountDownLatch allStarted = new CountDownLatch(width);
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<?>[] layer = new Stage<?>[width];
+        for (int i = 0; i < width; i++) {
+            layer[i] = builder.stage("s" + i, inputs -> {
+                allStarted.countDown();
+                try {
+                    return allStarted.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+        }
+        AtomicInteger started = new AtomicInteger();
+        Stage<Integer> sink = builder.stage("sink", inputs -> started.incrementAndGet(), layer);
+
+        PipelineResult result = builder.build().run(executor).join();
+
+        for (Stage<?> stage : layer) {
+            assertEquals(true, result.get(stage), "Stages of one layer should run concurrently");
+        }
+        assertEquals(1, result.get(sink));
+    }
+
+    @Test
+    public void shouldReportCriticalPath() {
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<Void> fast = builder.stage("fast", inputs -> sleep(10));
+        Stage<Void> slow = builder.stage("slow", inputs -> sleep(200));
+        Stage<Void> middle = builder.stage("middle", inputs -> sleep(50), fast);
+        builder.stage("last", inputs -> sleep(10), middle, slow);
+        builder.stage("side", inputs -> sleep(10), fast);
+
+        PipelineResult result = builder.build().run(executor).join();
+
+        List<String> path = result.getCriticalPath().stream().map(StageTiming::getName).collect(Collectors.toList());
+        assertEquals(List.of("slow", "last"), path);
+        assertTrue(result.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(210));
+        assertTrue(result.toString().startsWith("slow("));
+    }
+
+    @Test
+    public void shouldFailDependentsOfFailedStage() {
+        AtomicInteger executed = new AtomicInteger();
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<Integer> broken = builder.stage("broken", inputs -> {
+            throw new IllegalStateException("broken");
+        });
+        builder.stage("independent", inputs -> executed.incrementAndGet());
+        builder.stage("dependent", inputs -> executed.addAndGet(100), broken);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> builder.build().run(executor).join());
+
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(1, executed.get());
+    }
+
+    @Test
+    public void shouldOnlyExposeDeclaredInputs() {
+        Pipeline.Builder builder = Pipeline.builder();
+        Stage<Integer> a = builder.stage("a", inputs -> 1);
+        Stage<Integer> b = builder.stage("b", inputs -> 2, a);
+        builder.stage("c", inputs -> inputs.get(a), b);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> builder.build().run(executor).join());
+
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void shouldRejectInvalidGraphs() {
+        Pipeline.Builder builder = Pipeline.builder();
+        builder.stage("a", inputs -> 1);
+        Stage<Integer> foreign = Pipeline.builder().stage("foreign", inputs -> 1);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.stage("a", inputs -> 2));
+        assertThrows(IllegalArgumentException.class, () -> builder.stage("b", inputs -> 2, foreign));
+    }
+
+    private static Void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package course.concurrency.m2_async.executors;
+
+import course.concurrency.exams.auction.Bid;
+import course.concurrency.exams.auction.Notifier;
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingExecutorsBenchmarks {
+
+    public static final int OUTSTANDING = 100_000;
+
+    // AUTO is VIRTUAL on JVMs with virtual threads and PLATFORM otherwise
+    @Param({"PLATFORM", "AUTO"})
+    public ExecutionMode mode;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlockingExecutorsBenchmarks.class.getSimpleName())
+                .warmupIterations(0)
+                .measurementIterations(1)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        public long peakThreads;
+        public long heapUsedMb;
+        public long rejected;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            threads.resetPeakThreadCount();
+        }
+
+        void record() {
+            peakThreads = threads.getPeakThreadCount();
+            heapUsedMb = memory.getHeapMemoryUsage().getUsed() >> 20;
+        }
+    }
+
+    @Benchmark
+    public void outstandingSends(Footprint footprint) {
+        Notifier notifier = new Notifier(mode);
+        for (long i = 0; i < OUTSTANDING; i++) {
+            notifier.sendOutdatedMessage(new Bid(i, i, i));
+        }
+        footprint.record();
+        notifier.shutdownWithTimeout();
+    }
+
+    @Benchmark
+    public double outstandingLookups(Footprint footprint) {
+        PriceAggregator priceAggregator = new PriceAggregator(mode);
+        priceAggregator.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return shopId;
+            }
+        });
+        priceAggregator.setShops(LongStream.range(0, OUTSTANDING).boxed().collect(Collectors.toList()));
+        try {
+            double min = priceAggregator.getMinPrice(1L);
+            footprint.record();
+            return min;
+        } catch (RejectedExecutionException e) {
+            // the platform pool cannot keep that many lookups in flight
+            footprint.record();
+            footprint.rejected++;
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package course.concurrency.m2_async.executors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingExecutorsTests {
+
+    private final ExecutorService platformPool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    @Test
+    public void testPlatformModeUsesPool() {
+        assertSame(platformPool, BlockingExecutors.create(ExecutionMode.PLATFORM, () -> platformPool));
+        platformPool.shutdown();
+    }
+
+    @Test
+    public void testAutoModeFallsBackToPool() throws Exception {
+        ExecutorService executor = BlockingExecutors.create(ExecutionMode.AUTO, () -> platformPool);
+        assertEquals(BlockingExecutors.isVirtualThreadSupported(), executor != platformPool);
+        assertEquals(42, executor.submit(() -> 42).get());
+        executor.shutdown();
+        platformPool.shutdown();
+    }
+
+    @Test
+    public void testVirtualMode() throws Exception {
+        if (BlockingExecutors.isVirtualThreadSupported()) {
+            ExecutorService executor = BlockingExecutors.create(ExecutionMode.VIRTUAL, () -> platformPool);
+            assertTrue(executor.submit(() -> Thread.currentThread().toString()).get().startsWith("Virtual"));
+            executor.shutdown();
+        } else {
+            assertThrows(UnsupportedOperationException.class,
+                    () -> BlockingExecutors.create(ExecutionMode.VIRTUAL, () -> platformPool));
+        }
+        platformPool.shutdown();
+    }
+}
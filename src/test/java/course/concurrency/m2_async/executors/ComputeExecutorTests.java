@@ -0,0 +1,89 @@
+package course.concurrency.m2_async.executors;
+
+import course.concurrency.m2_async.cf.report.ReportServiceCF;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComputeExecutorTests {
+
+    @Test
+    public void shouldGiveWorkersStableSlots() throws InterruptedException {
+        int parallelism = 4;
+        Set<Integer> slots = ConcurrentHashMap.newKeySet();
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        CountDownLatch started = new CountDownLatch(parallelism);
+        try (ComputeExecutor executor = new ComputeExecutor("test", parallelism)) {
+            for (int i = 0; i < parallelism; i++) {
+                executor.execute(() -> {
+                    slots.add(ComputeExecutor.currentWorkerSlot());
+                    names.add(Thread.currentThread().getName());
+                    started.countDown();
+                    try {
+                        started.await();
+                    } catch (InterruptedException ignored) {
+
+                    }
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(parallelism, executor.getParallelism());
+        }
+
+        assertEquals(Set.of(0, 1, 2, 3), slots);
+        assertEquals(Set.of("test-0", "test-1", "test-2", "test-3"), names);
+        assertEquals(-1, ComputeExecutor.currentWorkerSlot());
+    }
+
+    @Test
+    public void shouldFinishTasksOnClose() {
+        AtomicBoolean finished = new AtomicBoolean();
+        ComputeExecutor executor = new ComputeExecutor("test");
+        executor.execute(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException ignored) {
+
+            }
+            finished.set(true);
+        });
+
+        executor.close();
+
+        assertTrue(finished.get());
+        assertTrue(executor.isTerminated());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    @Test
+    public void shouldUseCoreCountByDefault() {
+        try (ComputeExecutor executor = new ComputeExecutor("test")) {
+            assertEquals(Runtime.getRuntime().availableProcessors(), executor.getParallelism());
+        }
+    }
+
+    @Test
+    public void shouldShutdownOnlyOwnedExecutor() {
+        ExecutorService external = Executors.newFixedThreadPool(2);
+        ReportServiceCF withExternal = new ReportServiceCF(external);
+        withExternal.shutdown();
+        assertFalse(external.isShutdown());
+        external.shutdown();
+
+        ReportServiceCF owning = new ReportServiceCF();
+        owning.shutdown();
+        assertThrows(RejectedExecutionException.class, owning::getReport);
+    }
+}
@@ -0,0 +1,73 @@
+package course.concurrency.m2_async.metrics;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmarks {
+
+    // Change THREADS to experiment
+    public static final int THREADS = 4;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLongArray shared = new AtomicLongArray(LatencyHistogram.BUCKETS);
+    private final long[] locked = new long[LatencyHistogram.BUCKETS];
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LatencyHistogramBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .threads(THREADS)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @State(Scope.Thread)
+    public static class Latencies {
+        private long value = 1_000;
+
+        long next() {
+            value = (value * 31 + 7) & ((1 << 24) - 1);
+            return value;
+        }
+    }
+
+    @Benchmark
+    public long baseline(Latencies latencies) {
+        return latencies.next();
+    }
+
+    @Benchmark
+    public void perThread(Latencies latencies) {
+        histogram.record(latencies.next());
+    }
+
+    @Benchmark
+    public void sharedAtomic(Latencies latencies) {
+        shared.incrementAndGet(LatencyHistogram.bucket(latencies.next()));
+    }
+
+    @Benchmark
+    public void synchronizedArray(Latencies latencies) {
+        int bucket = LatencyHistogram.bucket(latencies.next());
+        synchronized (locked) {
+            locked[bucket]++;
+        }
+    }
+
+    @Benchmark
+    public void recordSinceNanoTime() {
+        histogram.recordSince(System.nanoTime());
+    }
+}
@@ -0,0 +1,99 @@
+package course.concurrency.m2_async.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void shouldMapValuesToBucketsWithBoundedError() {
+        for (int i = 0; i < 1_000_000; i++) {
+            long value = ThreadLocalRandom.current().nextLong(LatencyHistogram.MAX_VALUE);
+            int bucket = LatencyHistogram.bucket(value);
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32, value + " -> " + highest);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucket(-1));
+    }
+
+    @Test
+    public void shouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10_000), snapshot.getMaxNanos());
+        assertWithinError(TimeUnit.MICROSECONDS.toNanos(5_000), snapshot.getP50Nanos());
+        assertWithinError(TimeUnit.MICROSECONDS.toNanos(9_900), snapshot.getP99Nanos());
+        assertWithinError(TimeUnit.MICROSECONDS.toNanos(9_990), snapshot.getP999Nanos());
+        assertWithinError(TimeUnit.MICROSECONDS.toNanos(5_000), (long) snapshot.getMeanNanos());
+    }
+
+    @Test
+    public void shouldMergeThreads() throws InterruptedException {
+        int threads = 8;
+        int records = 100_000;
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int r = 0; r < records; r++) {
+                    histogram.record(100);
+                }
+            });
+        }
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals((long) threads * records, histogram.snapshot().getCount());
+        assertEquals(100, histogram.snapshot().getP999Nanos());
+    }
+
+    @Test
+    public void shouldKeepCountsOfFinishedThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 10; i++) {
+            Thread thread = new Thread(() -> histogram.record(1_000));
+            thread.start();
+            thread.join();
+            assertEquals(i + 1, histogram.snapshot().getCount());
+        }
+        histogram.record(2_000);
+
+        assertEquals(11, histogram.snapshot().getCount());
+        assertEquals(2_000, histogram.snapshot().getMaxNanos());
+    }
+
+    @Test
+    public void shouldReturnZeroWhenEmpty() {
+        LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99Nanos());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected / 32, "expected " + expected + " but was " + actual);
+    }
+}
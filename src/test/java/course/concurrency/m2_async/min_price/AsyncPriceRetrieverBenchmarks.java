@@ -0,0 +1,96 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toSet;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AsyncPriceRetrieverBenchmarks {
+
+    // Change SHOPS, ROUND_TRIP and IO_THREADS to experiment
+    public static final int SHOPS = 9;
+    public static final long ROUND_TRIP = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int IO_THREADS = 2;
+
+    @Param({"100", "1000", "10000"})
+    public int lookups;
+
+    private final PriceAggregator blocking = new PriceAggregator();
+    private final PriceAggregator nonBlocking = new PriceAggregator();
+    private final ScheduledExecutorService io = Executors.newScheduledThreadPool(IO_THREADS);
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AsyncPriceRetrieverBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        blocking.setShops(LongStream.range(0, SHOPS).boxed().collect(toSet()));
+        // room for the whole burst, so the benchmark measures throughput rather than rejections
+        blocking.setBlockingLimits(100, lookups * SHOPS);
+        blocking.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                LockSupport.parkNanos(ROUND_TRIP);
+                return itemId + shopId;
+            }
+        });
+        nonBlocking.setShops(LongStream.range(0, SHOPS).boxed().collect(toSet()));
+        nonBlocking.setAsyncPriceRetriever((itemId, shopId) -> {
+            CompletableFuture<Double> price = new CompletableFuture<>();
+            io.schedule(() -> price.complete((double) itemId + shopId), ROUND_TRIP, TimeUnit.NANOSECONDS);
+            return price;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        io.shutdownNow();
+    }
+
+    // lookups of the blocking retriever are adapted onto at most 100 executor threads
+    @Benchmark
+    public void blockingAdapter(Blackhole blackhole) {
+        run(blocking, blackhole);
+    }
+
+    @Benchmark
+    public void nativeAsync(Blackhole blackhole) {
+        run(nonBlocking, blackhole);
+    }
+
+    private void run(PriceAggregator priceAggregator, Blackhole blackhole) {
+        List<CompletableFuture<Double>> prices = new ArrayList<>(lookups);
+        for (long itemId = 0; itemId < lookups; itemId++) {
+            prices.add(priceAggregator.getMinPriceAsync(itemId));
+        }
+        for (CompletableFuture<Double> price : prices) {
+            blackhole.consume(price.join());
+        }
+    }
+}
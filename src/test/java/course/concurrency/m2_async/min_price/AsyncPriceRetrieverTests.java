@@ -0,0 +1,258 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.AsyncPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.BlockingPriceRetrieverAdapter;
+import course.concurrency.m2_async.cf.min_price.LatencyBudget;
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncPriceRetrieverTests {
+    private static final int SLA = 3000;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldServeManyLookupsWithOneThread() {
+        int items = 10_000;
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setShops(LongStream.range(1, 10).boxed().collect(toSet()));
+        priceAggregator.setAsyncPriceRetriever((itemId, shopId) -> {
+            CompletableFuture<Double> price = new CompletableFuture<>();
+            scheduler.schedule(() -> price.complete((double) itemId + shopId), 100, TimeUnit.MILLISECONDS);
+            return price;
+        });
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Double>> prices = new ArrayList<>();
+        for (long itemId = 0; itemId < items; itemId++) {
+            prices.add(priceAggregator.getMinPriceAsync(itemId));
+        }
+        for (int itemId = 0; itemId < items; itemId++) {
+            assertEquals(itemId + 1.0, prices.get(itemId).join());
+        }
+        long end = System.currentTimeMillis();
+
+        assertTrue((end - start) < SLA);
+    }
+
+    @Test
+    public void shouldNotCompleteSharedFutureOnTimeout() {
+        CompletableFuture<Double> never = new CompletableFuture<>();
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setShops(Set.of(1L, 2L, 3L));
+        priceAggregator.setAsyncPriceRetriever((itemId, shopId) -> {
+            if (shopId == 1) {
+                return never;
+            }
+            if (shopId == 2) {
+                throw new IllegalStateException();
+            }
+            return CompletableFuture.completedFuture(42.0);
+        });
+
+        long start = System.currentTimeMillis();
+        double min = priceAggregator.getMinPrice(1);
+        long end = System.currentTimeMillis();
+
+        assertEquals(42.0, min);
+        assertTrue((end - start) < SLA);
+        assertFalse(never.isDone());
+    }
+
+    @Test
+    public void shouldBoundBlockingLookups() {
+        int lookups = 50;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        PriceRetriever priceRetriever = new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return itemId;
+            }
+        };
+        AsyncPriceRetriever adapter = new BlockingPriceRetrieverAdapter(priceRetriever, executor, 2, lookups);
+
+        List<CompletableFuture<Double>> prices = new ArrayList<>();
+        for (int itemId = 0; itemId < lookups; itemId++) {
+            prices.add(adapter.getPriceAsync(itemId, 1));
+        }
+        for (int itemId = 0; itemId < lookups; itemId++) {
+            assertEquals(itemId, prices.get(itemId).join());
+        }
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        PriceRetriever priceRetriever = new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return itemId;
+            }
+        };
+        BlockingPriceRetrieverAdapter adapter = new BlockingPriceRetrieverAdapter(priceRetriever, executor, 1, 2);
+
+        CompletableFuture<Double> first = adapter.getPriceAsync(1, 1);
+        CompletableFuture<Double> second = adapter.getPriceAsync(2, 1);
+        CompletableFuture<Double> third = adapter.getPriceAsync(3, 1);
+        CompletableFuture<Double> rejected = adapter.getPriceAsync(4, 1);
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(1, adapter.getRunning());
+        assertEquals(2, adapter.getQueued());
+
+        second.cancel(false);
+        release.countDown();
+        assertEquals(1.0, first.join());
+        assertEquals(3.0, third.join());
+        assertEquals(0, adapter.getQueued());
+    }
+
+    @Test
+    public void shouldOnlyRunLookupsWithoutQueue() {
+        CountDownLatch release = new CountDownLatch(1);
+        PriceRetriever priceRetriever = new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return itemId;
+            }
+        };
+        BlockingPriceRetrieverAdapter adapter = new BlockingPriceRetrieverAdapter(priceRetriever, executor, 1, 0);
+
+        CompletableFuture<Double> first = adapter.getPriceAsync(1, 1);
+        CompletableFuture<Double> rejected = adapter.getPriceAsync(2, 1);
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(0, adapter.getQueued());
+        release.countDown();
+        assertEquals(1.0, first.join());
+        // the price completes just before the lookup gives its thread back
+        while (adapter.getRunning() > 0) {
+            Thread.onSpinWait();
+        }
+        assertEquals(3.0, adapter.getPriceAsync(3, 1).join());
+        assertThrows(IllegalArgumentException.class,
+                () -> new BlockingPriceRetrieverAdapter(priceRetriever, executor, 1, -1));
+    }
+
+    @Test
+    public void shouldSkipQueuedLookupsOfTimedOutPrices() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setShops(List.of(1L, 2L, 3L));
+        priceAggregator.setBlockingLimits(1, 10);
+        priceAggregator.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return shopId;
+            }
+        });
+
+        double min = priceAggregator.getMinPriceAsync(1).join();
+        release.countDown();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertTrue(Double.isNaN(min));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void shouldRejectLookupsBeyondBlockingLimits() {
+        CountDownLatch release = new CountDownLatch(1);
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setShops(List.of(1L, 2L, 3L));
+        priceAggregator.setBlockingLimits(1, 1);
+        priceAggregator.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return shopId;
+            }
+        });
+
+        CompletableFuture<Double> price = priceAggregator.getMinPriceAsync(1);
+        release.countDown();
+
+        // shop 3 was rejected at once, the others answer
+        assertEquals(1.0, price.join());
+    }
+
+    @Test
+    public void shouldIgnoreAsyncRetrieverWithLatencyBudgetAndBatches() {
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setShops(Set.of(1L, 2L));
+        priceAggregator.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                return 10.0 + shopId;
+            }
+        });
+        priceAggregator.setAsyncPriceRetriever((itemId, shopId) -> CompletableFuture.completedFuture(1.0));
+
+        assertEquals(1.0, priceAggregator.getMinPrice(1));
+        assertEquals(11.0, priceAggregator.getMinPrices(List.of(1L)).get(1L).join());
+        priceAggregator.setLatencyBudget(new LatencyBudget(2000, 2, 0, 0));
+        assertEquals(11.0, priceAggregator.getMinPrice(1));
+    }
+}
@@ -0,0 +1,189 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.BulkheadPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.BulkheadPriceRetriever.CircuitState;
+import course.concurrency.m2_async.cf.min_price.BulkheadPriceRetriever.ShopMetrics;
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadPriceRetrieverTests {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final StubPriceRetriever stub = new StubPriceRetriever(clock);
+
+    @Test
+    public void shouldRejectCallsOverLimit() throws InterruptedException {
+        int threads = 10;
+        BulkheadPriceRetriever retriever = new BulkheadPriceRetriever(stub, 2, 2, 1000, 0.5, 10, 1000,
+                clock::get);
+        CountDownLatch release = new CountDownLatch(1);
+        stub.block(1, release);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch answered = new CountDownLatch(threads - 2);
+        AtomicInteger nanAnswers = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                if (Double.isNaN(retriever.getPrice(1, 1))) {
+                    nanAnswers.incrementAndGet();
+                }
+                answered.countDown();
+            });
+        }
+
+        assertTrue(answered.await(5, TimeUnit.SECONDS), "Rejected calls should not wait for the slow shop");
+        assertEquals(threads - 2, nanAnswers.get());
+        ShopMetrics metrics = retriever.getMetrics(1);
+        assertEquals(2, metrics.getInFlight());
+        assertEquals(threads - 2, metrics.getRejected());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, retriever.getMetrics(1).getInFlight());
+        assertEquals(2, retriever.getMetrics(1).getCalls());
+    }
+
+    @Test
+    public void shouldAdaptLimitToLatency() {
+        BulkheadPriceRetriever retriever = new BulkheadPriceRetriever(stub, 1, 8, 100, 1, 1000, 1000, clock::get);
+        stub.latency(1, 10);
+
+        for (int i = 0; i < 100; i++) {
+            retriever.getPrice(i, 1);
+        }
+        assertEquals(8, retriever.getMetrics(1).getLimit());
+
+        stub.latency(1, 500);
+        retriever.getPrice(1, 1);
+        assertEquals(4, retriever.getMetrics(1).getLimit());
+        retriever.getPrice(1, 1);
+        retriever.getPrice(1, 1);
+        retriever.getPrice(1, 1);
+        assertEquals(1, retriever.getMetrics(1).getLimit());
+        assertEquals(CircuitState.CLOSED, retriever.getMetrics(1).getState());
+    }
+
+    @Test
+    public void shouldOpenCircuitOnFailures() {
+        BulkheadPriceRetriever retriever = new BulkheadPriceRetriever(stub, 1, 1, 100, 0.5, 4, 1000, clock::get);
+        stub.latency(1, 10);
+        stub.failEvery(1, 2);
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                retriever.getPrice(i, 1);
+            } catch (IllegalStateException ignored) {
+
+            }
+        }
+        assertEquals(CircuitState.OPEN, retriever.getMetrics(1).getState());
+        int calls = stub.calls(1);
+
+        assertTrue(Double.isNaN(retriever.getPrice(1, 1)));
+        assertEquals(calls, stub.calls(1), "Open circuit should skip the shop");
+        assertEquals(1, retriever.getMetrics(1).getShortCircuited());
+
+        stub.failEvery(1, 0);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(1.0, retriever.getPrice(1, 1));
+        assertEquals(CircuitState.CLOSED, retriever.getMetrics(1).getState());
+    }
+
+    @Test
+    public void shouldReopenCircuitWhenProbeFails() {
+        BulkheadPriceRetriever retriever = new BulkheadPriceRetriever(stub, 1, 1, 100, 1, 2, 1000, clock::get);
+        stub.latency(1, 200);
+
+        retriever.getPrice(1, 1);
+        retriever.getPrice(1, 1);
+        assertEquals(CircuitState.OPEN, retriever.getMetrics(1).getState());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        retriever.getPrice(1, 1);
+        assertEquals(CircuitState.OPEN, retriever.getMetrics(1).getState());
+        assertTrue(Double.isNaN(retriever.getPrice(1, 1)));
+        assertEquals(3, stub.calls(1));
+    }
+
+    @Test
+    public void shouldIsolateSlowShop() {
+        BulkheadPriceRetriever retriever = new BulkheadPriceRetriever(stub, 2, 4, 100, 0.5, 10, 60_000,
+                System::nanoTime);
+        stub.block(1, new CountDownLatch(1));
+        PriceAggregator priceAggregator = new PriceAggregator();
+        priceAggregator.setPriceRetriever(retriever);
+        priceAggregator.setShops(Set.of(1L, 2L, 3L));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(2.0, priceAggregator.getMinPrice(i));
+        }
+
+        Map<Long, ShopMetrics> metrics = retriever.getMetrics();
+        assertEquals(2, metrics.get(1L).getInFlight());
+        assertEquals(18, metrics.get(1L).getRejected());
+        assertEquals(20, metrics.get(2L).getCalls());
+    }
+
+    // latency is simulated by moving the clock unless a shop is blocked on a latch
+    private static class StubPriceRetriever extends PriceRetriever {
+        private final AtomicLong clock;
+        private final Map<Long, Long> latencies = new ConcurrentHashMap<>();
+        private final Map<Long, Integer> failEvery = new ConcurrentHashMap<>();
+        private final Map<Long, CountDownLatch> blocked = new ConcurrentHashMap<>();
+        private final Map<Long, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        StubPriceRetriever(AtomicLong clock) {
+            this.clock = clock;
+        }
+
+        void latency(long shopId, long millis) {
+            latencies.put(shopId, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        void failEvery(long shopId, int calls) {
+            failEvery.put(shopId, calls);
+        }
+
+        void block(long shopId, CountDownLatch latch) {
+            blocked.put(shopId, latch);
+        }
+
+        int calls(long shopId) {
+            return calls.computeIfAbsent(shopId, id -> new AtomicInteger()).get();
+        }
+
+        @Override
+        public double getPrice(long itemId, long shopId) {
+            int call = calls.computeIfAbsent(shopId, id -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch latch = blocked.get(shopId);
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            clock.addAndGet(latencies.getOrDefault(shopId, 0L));
+            int every = failEvery.getOrDefault(shopId, 0);
+            if (every > 0 && call % every == 0) {
+                throw new IllegalStateException("Shop " + shopId + " failed");
+            }
+            return shopId;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.CachingPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CachingPriceRetrieverBenchmarks {
+
+    // Change THREADS, ZIPF_EXPONENT and LOOKUP_COST to experiment
+    public static final int THREADS = 8;
+    public static final int ITEMS = 100_000;
+    public static final int SHOPS = 10;
+    public static final double ZIPF_EXPONENT = 1.0;
+    public static final long LOOKUP_COST = 10_000;
+    public static final int SAMPLES = 1 << 20;
+
+    private final PriceRetriever priceRetriever = new PriceRetriever() {
+        @Override
+        public double getPrice(long itemId, long shopId) {
+            Blackhole.consumeCPU(LOOKUP_COST);
+            return itemId + shopId;
+        }
+    };
+
+    private CachingPriceRetriever cache;
+    private long[] itemIds;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CachingPriceRetrieverBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .threads(THREADS)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        cache = new CachingPriceRetriever(priceRetriever, 1, TimeUnit.SECONDS, ITEMS * SHOPS / 10);
+        itemIds = zipf(ITEMS, ZIPF_EXPONENT, SAMPLES);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nhits: %d, misses: %d, coalesced: %d, evictions: %d%n", cache.getHitCount(),
+                cache.getMissCount(), cache.getCoalescedCount(), cache.getEvictionCount());
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(SAMPLES);
+
+        long nextItem(long[] itemIds) {
+            position = (position + 1) & (SAMPLES - 1);
+            return itemIds[position];
+        }
+    }
+
+    @Benchmark
+    public double uncached(Cursor cursor) {
+        return priceRetriever.getPrice(cursor.nextItem(itemIds), ThreadLocalRandom.current().nextInt(SHOPS));
+    }
+
+    @Benchmark
+    public double cached(Cursor cursor) {
+        return cache.getPrice(cursor.nextItem(itemIds), ThreadLocalRandom.current().nextInt(SHOPS));
+    }
+
+    private static long[] zipf(int items, double exponent, int samples) {
+        double[] cumulative = new double[items];
+        double sum = 0;
+        for (int rank = 0; rank < items; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        long[] result = new long[samples];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            result[i] = rank < 0 ? -rank - 1 : rank;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.CachingPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class CachingPriceRetrieverTests {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testHitUntilTtlExpires() {
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenReturn(10d, 20d);
+        CachingPriceRetriever cache = new CachingPriceRetriever(priceRetriever, 100, TimeUnit.MILLISECONDS,
+                1_000, clock::get);
+
+        assertEquals(10d, cache.getPrice(1L, 2L));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        assertEquals(10d, cache.getPrice(1L, 2L));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(20d, cache.getPrice(1L, 2L));
+
+        verify(priceRetriever, times(2)).getPrice(1L, 2L);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        int callers = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        PriceRetriever priceRetriever = new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42d;
+            }
+        };
+        CachingPriceRetriever cache = new CachingPriceRetriever(priceRetriever, 1, TimeUnit.MINUTES, 1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch started = new CountDownLatch(callers);
+
+        Future<?>[] results = new Future<?>[callers];
+        for (int i = 0; i < callers; i++) {
+            results[i] = executor.submit(() -> {
+                started.countDown();
+                return cache.getPrice(7L, 7L);
+            });
+        }
+        started.await();
+        while (cache.getMissCount() + cache.getCoalescedCount() < callers) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Future<?> result : results) {
+            assertEquals(42d, result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(callers - 1, cache.getCoalescedCount());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenThrow(new IllegalStateException()).thenReturn(5d);
+        CachingPriceRetriever cache = new CachingPriceRetriever(priceRetriever, 1, TimeUnit.MINUTES, 1_000);
+
+        assertThrows(IllegalStateException.class, () -> cache.getPrice(1L, 1L));
+        assertEquals(5d, cache.getPrice(1L, 1L));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        int maximumSize = 1_024;
+        AtomicInteger hotCalls = new AtomicInteger();
+        PriceRetriever priceRetriever = new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                if (itemId == -1L) {
+                    hotCalls.incrementAndGet();
+                }
+                return 1d;
+            }
+        };
+        CachingPriceRetriever cache = new CachingPriceRetriever(priceRetriever, 1, TimeUnit.MINUTES, maximumSize);
+
+        for (long itemId = 0; itemId < 100_000; itemId++) {
+            cache.getPrice(itemId, 1L);
+            // a hot key keeps being promoted and survives the scan
+            cache.getPrice(-1L, 1L);
+        }
+
+        assertTrue(cache.size() <= maximumSize);
+        assertTrue(cache.getEvictionCount() >= 100_000 - maximumSize);
+        assertEquals(1, hotCalls.get());
+    }
+}
@@ -0,0 +1,215 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MinPricePublisherTests {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final Map<Long, Double> prices = new ConcurrentHashMap<>();
+    private final Map<Long, Long> delays = new ConcurrentHashMap<>();
+    private PriceAggregator priceAggregator;
+
+    @BeforeEach
+    public void setup() {
+        priceAggregator = new PriceAggregator();
+        // shops without a delay never answer
+        priceAggregator.setAsyncPriceRetriever((itemId, shopId) -> {
+            CompletableFuture<Double> price = new CompletableFuture<>();
+            Long delay = delays.get(shopId);
+            if (delay != null) {
+                scheduler.schedule(() -> price.complete(prices.get(shopId)), delay, TimeUnit.MILLISECONDS);
+            }
+            return price;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @RepeatedTest(10)
+    public void shouldEmitDecreasingPrices() throws InterruptedException {
+        Set<Long> shops = LongStream.range(0, 20).boxed().collect(toSet());
+        shops.forEach(shopId -> {
+            prices.put(shopId, ThreadLocalRandom.current().nextDouble(1000));
+            delays.put(shopId, ThreadLocalRandom.current().nextLong(50));
+        });
+        priceAggregator.setShops(shops);
+        double expectedMin = prices.values().stream().min(Double::compareTo).get();
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        long start = System.currentTimeMillis();
+        priceAggregator.getMinPriceUpdates(1, 2000).subscribe(subscriber);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS), "Should complete once every shop answered");
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(subscriber.completed);
+        List<PriceUpdate> updates = subscriber.updates;
+        assertFalse(updates.isEmpty());
+        for (int i = 1; i < updates.size(); i++) {
+            assertTrue(updates.get(i).getPrice() < updates.get(i - 1).getPrice(), "Prices should decrease");
+        }
+        assertEquals(expectedMin, updates.get(updates.size() - 1).getPrice());
+    }
+
+    @Test
+    public void shouldCompleteAtDeadline() throws InterruptedException {
+        priceAggregator.setShops(Set.of(1L, 2L, 3L));
+        prices.put(1L, 30.0);
+        delays.put(1L, 10L);
+        prices.put(2L, 20.0);
+        delays.put(2L, 50L);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        long start = System.currentTimeMillis();
+        priceAggregator.getMinPriceUpdates(1, 300).subscribe(subscriber);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(elapsed >= 300 && elapsed < 1000, "Should complete at the deadline, took " + elapsed);
+        assertTrue(subscriber.completed);
+        assertEquals(List.of(30.0, 20.0), subscriber.prices());
+        assertEquals(2, subscriber.updates.get(1).getAnsweredShops());
+        assertEquals(3, subscriber.updates.get(1).getTotalShops());
+    }
+
+    @Test
+    public void shouldConflateWithoutDemand() throws InterruptedException {
+        priceAggregator.setShops(Set.of(1L, 2L, 3L));
+        prices.put(1L, 30.0);
+        delays.put(1L, 0L);
+        prices.put(2L, 20.0);
+        delays.put(2L, 100L);
+        prices.put(3L, 10.0);
+        delays.put(3L, 150L);
+
+        TestSubscriber subscriber = new TestSubscriber(1);
+        priceAggregator.getMinPriceUpdates(1, 2000).subscribe(subscriber);
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(List.of(30.0), subscriber.prices());
+        assertFalse(subscriber.completed, "Completion should wait for the pending price to be requested");
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of(30.0, 10.0), subscriber.prices());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void shouldStopAfterCancel() throws InterruptedException {
+        priceAggregator.setShops(Set.of(1L, 2L));
+        prices.put(1L, 30.0);
+        delays.put(1L, 0L);
+        prices.put(2L, 20.0);
+        delays.put(2L, 100L);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(PriceUpdate item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        priceAggregator.getMinPriceUpdates(1, 300).subscribe(subscriber);
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(List.of(30.0), subscriber.prices());
+        assertEquals(1, subscriber.terminated.getCount());
+    }
+
+    @Test
+    public void shouldSignalErrorOnNonPositiveRequest() throws InterruptedException {
+        priceAggregator.setShops(Set.of(1L));
+        delays.put(1L, 0L);
+        prices.put(1L, 1.0);
+
+        TestSubscriber subscriber = new TestSubscriber(0);
+        priceAggregator.getMinPriceUpdates(1, 300).subscribe(subscriber);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.updates.isEmpty());
+    }
+
+    @Test
+    public void shouldCompleteWithoutShops() throws InterruptedException {
+        priceAggregator.setShops(Set.of());
+
+        TestSubscriber subscriber = new TestSubscriber(1);
+        priceAggregator.getMinPriceUpdates(1).subscribe(subscriber);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<PriceUpdate> {
+        private final long initialRequest;
+        private final List<PriceUpdate> updates = new CopyOnWriteArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final AtomicInteger signals = new AtomicInteger();
+        protected volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        List<Double> prices() {
+            return updates.stream().map(PriceUpdate::getPrice).collect(toList());
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(PriceUpdate item) {
+            assertEquals(1, signals.incrementAndGet(), "Signals should not overlap");
+            updates.add(item);
+            signals.decrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.BatchPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PriceAggregatorBatchBenchmarks {
+
+    // Change ITEMS, ROUND_TRIP and BATCH_SIZE to experiment
+    public static final int ITEMS = 200;
+    public static final int SHOPS = 9;
+    public static final long ROUND_TRIP = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final long ITEM_COST = 1_000;
+    public static final int BATCH_SIZE = 50;
+
+    private final PriceAggregator perItem = new PriceAggregator();
+    private final PriceAggregator batched = new PriceAggregator();
+    private List<Long> itemIds;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PriceAggregatorBatchBenchmarks.class.getSimpleName())
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setup() {
+        itemIds = LongStream.range(0, ITEMS).boxed().collect(toList());
+        perItem.setShops(LongStream.range(0, SHOPS).boxed().collect(toSet()));
+        perItem.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                LockSupport.parkNanos(ROUND_TRIP);
+                Blackhole.consumeCPU(ITEM_COST);
+                return itemId + shopId;
+            }
+        });
+        batched.setShops(LongStream.range(0, SHOPS).boxed().collect(toSet()));
+        batched.setBatching(BATCH_SIZE, 32);
+        batched.setBatchPriceRetriever(new BatchPriceRetriever() {
+            @Override
+            public Map<Long, Double> getPrices(long shopId, Collection<Long> itemIds) {
+                LockSupport.parkNanos(ROUND_TRIP);
+                Map<Long, Double> prices = new HashMap<>();
+                for (Long itemId : itemIds) {
+                    Blackhole.consumeCPU(ITEM_COST);
+                    prices.put(itemId, (double) itemId + shopId);
+                }
+                return prices;
+            }
+        });
+    }
+
+    @Benchmark
+    public void perItemLoop(Blackhole blackhole) {
+        for (Long itemId : itemIds) {
+            blackhole.consume(perItem.getMinPrice(itemId));
+        }
+    }
+
+    @Benchmark
+    public void batch(Blackhole blackhole) {
+        for (CompletableFuture<Double> price : batched.getMinPrices(itemIds).values()) {
+            blackhole.consume(price.join());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package course.concurrency.m2_async.min_price;
+
+import course.concurrency.m2_async.cf.min_price.BatchPriceRetriever;
+import course.concurrency.m2_async.cf.min_price.PriceAggregator;
+import course.concurrency.m2_async.cf.min_price.PriceRetriever;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceAggregatorBatchTests {
+    private static final int SLA = 3000;
+    PriceAggregator priceAggregator;
+
+    @BeforeEach
+    public void setup() {
+        priceAggregator = new PriceAggregator();
+    }
+
+    @Test
+    @DisplayName("Per item adapter over PriceRetriever")
+    public void shouldReturnMinPerItem() {
+        priceAggregator.setPriceRetriever(new PriceRetriever() {
+            @Override
+            public double getPrice(long itemId, long shopId) {
+                return shopId == 3 ? Double.NaN : itemId * 10 + shopId;
+            }
+        });
+        priceAggregator.setShops(Set.of(3L, 5L, 7L));
+        List<Long> items = LongStream.range(1, 20).boxed().collect(toList());
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(items);
+
+        assertEquals(items, List.copyOf(prices.keySet()));
+        prices.forEach((itemId, price) -> assertEquals(itemId * 10 + 5, price.join()));
+    }
+
+    @Test
+    @DisplayName("One request per shop and chunk")
+    public void shouldBatchRequests() {
+        AtomicInteger requests = new AtomicInteger();
+        priceAggregator.setBatchPriceRetriever((shopId, itemIds) -> {
+            requests.incrementAndGet();
+            Map<Long, Double> prices = new HashMap<>();
+            itemIds.forEach(itemId -> prices.put(itemId, (double) shopId));
+            return prices;
+        });
+        priceAggregator.setShops(LongStream.range(1, 5).boxed().collect(toSet()));
+        priceAggregator.setBatching(10, 3);
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(
+                LongStream.range(0, 25).boxed().collect(toList()));
+
+        prices.values().forEach(price -> assertEquals(1.0, price.join()));
+        assertEquals(4 * 3, requests.get());
+    }
+
+    @Test
+    @DisplayName("First chunks are final first with a single lane")
+    public void shouldStreamChunksInOrder() {
+        CountDownLatch release = new CountDownLatch(1);
+        priceAggregator.setBatchPriceRetriever((shopId, itemIds) -> {
+            if (itemIds.contains(2L)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Map<Long, Double> prices = new HashMap<>();
+            itemIds.forEach(itemId -> prices.put(itemId, (double) itemId));
+            return prices;
+        });
+        priceAggregator.setShops(List.of(1L, 2L));
+        priceAggregator.setBatching(1, 1);
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(List.of(0L, 1L, 2L));
+
+        assertEquals(0.0, prices.get(0L).join());
+        assertEquals(1.0, prices.get(1L).join());
+        assertFalse(prices.get(2L).isDone());
+        release.countDown();
+        assertEquals(2.0, prices.get(2L).join());
+    }
+
+    @Test
+    @DisplayName("A timed out batch keeps its lane until it returns")
+    public void shouldNotExceedParallelismAfterTimeout() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        priceAggregator.setBatchPriceRetriever((shopId, itemIds) -> {
+            if (requests.incrementAndGet() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Map.of(itemIds.iterator().next(), 1.0);
+        });
+        priceAggregator.setShops(List.of(1L));
+        priceAggregator.setBatching(1, 1);
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(List.of(0L, 1L));
+
+        assertTrue(Double.isNaN(prices.get(0L).join()));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(1, requests.get());
+        release.countDown();
+        assertEquals(1.0, prices.get(1L).join());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    @DisplayName("Items are returned as soon as their batches are done")
+    public void shouldStreamResults() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        priceAggregator.setBatchPriceRetriever((shopId, itemIds) -> {
+            if (!itemIds.contains(0L)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Map<Long, Double> prices = new HashMap<>();
+            itemIds.forEach(itemId -> prices.put(itemId, (double) itemId));
+            return prices;
+        });
+        priceAggregator.setShops(Set.of(1L, 2L));
+        priceAggregator.setBatching(1, 8);
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(List.of(0L, 1L, 2L));
+
+        assertEquals(0.0, prices.get(0L).join());
+        assertFalse(prices.get(1L).isDone());
+        assertFalse(prices.get(2L).isDone());
+        release.countDown();
+        assertEquals(1.0, prices.get(1L).join());
+        assertEquals(2.0, prices.get(2L).join());
+    }
+
+    @Test
+    @DisplayName("Slow and failing shops are skipped")
+    public void shouldSkipSlowAndFailingShops() {
+        priceAggregator.setBatchPriceRetriever((shopId, itemIds) -> {
+            if (shopId == 1) {
+                throw new IllegalStateException();
+            }
+            if (shopId == 2) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(SLA + 1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Map<Long, Double> prices = new HashMap<>();
+            itemIds.forEach(itemId -> prices.put(itemId, itemId + 100.0 / shopId));
+            return prices;
+        });
+        priceAggregator.setShops(Set.of(1L, 2L, 4L));
+
+        long start = System.currentTimeMillis();
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(List.of(1L, 2L, 2L));
+        prices.forEach((itemId, price) -> assertEquals(itemId + 25.0, price.join()));
+        long end = System.currentTimeMillis();
+
+        assertEquals(2, prices.size());
+        assertTrue((end - start) < SLA);
+    }
+
+    @Test
+    @DisplayName("No shops gives NaN")
+    public void shouldReturnNaNWithoutShops() {
+        priceAggregator.setShops(Set.of());
+
+        Map<Long, CompletableFuture<Double>> prices = priceAggregator.getMinPrices(List.of(1L));
+
+        assertTrue(Double.isNaN(prices.get(1L).join()));
+    }
+}
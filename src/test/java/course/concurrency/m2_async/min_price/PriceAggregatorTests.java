@@ -1,5 +1,6 @@
 package course.concurrency.m2_async.min_price;
 
+import course.concurrency.m2_async.cf.min_price.LatencyBudget;
 import course.concurrency.m2_async.cf.min_price.PriceAggregator;
 import course.concurrency.m2_async.cf.min_price.PriceRetriever;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,8 +10,10 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
@@ -220,4 +223,127 @@ public class PriceAggregatorTests {
         assertEquals(expectedMinPrice, min, "Minimal price is evaluated incorrectly");
         assertTrue((end - start) < SLA, "Method evaluated too long");
     }
+
+    @Test
+    @DisplayName("Quorum of shops answers fast")
+    public void shouldReturnOnQuorum() {
+        int shopCount = 50;
+        int quorum = 10;
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenAnswer(inv -> {
+            long shopId = inv.getArgument(1);
+            if (shopId >= quorum) {
+                Thread.sleep(SLA);
+            }
+            return 100d + shopId;
+        });
+        priceAggregator.setPriceRetriever(priceRetriever);
+        priceAggregator.setShops(LongStream.range(0, shopCount).boxed().collect(toList()));
+        priceAggregator.setLatencyBudget(new LatencyBudget(2800, quorum, 0, 0));
+
+        long start = System.currentTimeMillis();
+        double min = priceAggregator.getMinPrice(randomItemId);
+        long end = System.currentTimeMillis();
+
+        assertEquals(100d, min, "Minimal price is evaluated incorrectly");
+        assertTrue((end - start) < 500, "Quorum was not used, took " + (end - start));
+    }
+
+    @Test
+    @DisplayName("Budget deadline is respected when nobody answers")
+    public void shouldReturnDefaultAtDeadline() {
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenAnswer(inv -> {
+            Thread.sleep(SLA * 2);
+            return 12d;
+        });
+        priceAggregator.setPriceRetriever(priceRetriever);
+        priceAggregator.setLatencyBudget(new LatencyBudget(300, Integer.MAX_VALUE, 0, 0));
+
+        long start = System.currentTimeMillis();
+        double min = priceAggregator.getMinPrice(randomItemId);
+        long end = System.currentTimeMillis();
+
+        assertEquals(Double.NaN, min, "Minimal price is evaluated incorrectly");
+        assertTrue((end - start) >= 300, "Returned before the deadline");
+        assertTrue((end - start) < 800, "Deadline was not respected, took " + (end - start));
+    }
+
+    @Test
+    @DisplayName("Slow shops are hedged with a duplicate request")
+    public void shouldHedgeSlowShops() {
+        int shopCount = 20;
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        ConcurrentHashMap<Long, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenAnswer(inv -> {
+            long shopId = inv.getArgument(1);
+            // the first request to every odd shop hangs, a retry answers at once
+            if (shopId % 2 == 1 && attempts.computeIfAbsent(shopId, id -> new AtomicInteger()).getAndIncrement() == 0) {
+                Thread.sleep(SLA * 2);
+            }
+            return 10d + shopId;
+        });
+        priceAggregator.setPriceRetriever(priceRetriever);
+        priceAggregator.setShops(LongStream.range(1, shopCount + 1).boxed().collect(toList()));
+        priceAggregator.setLatencyBudget(new LatencyBudget(2800, Integer.MAX_VALUE, 0.5, 100));
+
+        long start = System.currentTimeMillis();
+        double min = priceAggregator.getMinPrice(randomItemId);
+        long end = System.currentTimeMillis();
+
+        assertEquals(11d, min, "Hedged answer was not used");
+        assertTrue((end - start) < 1000, "Slow shops were not hedged, took " + (end - start));
+    }
+
+    @Test
+    @DisplayName("Outstanding requests are cancelled once the answer is known")
+    public void shouldCancelOutstandingRequests() throws InterruptedException {
+        int shopCount = 20;
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenAnswer(inv -> {
+            long shopId = inv.getArgument(1);
+            if (shopId > 0) {
+                started.incrementAndGet();
+                try {
+                    Thread.sleep(SLA * 2);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+            }
+            return 1d;
+        });
+        priceAggregator.setPriceRetriever(priceRetriever);
+        priceAggregator.setShops(LongStream.range(0, shopCount).boxed().collect(toList()));
+        priceAggregator.setLatencyBudget(new LatencyBudget(2800, 1, 0, 0));
+
+        double min = priceAggregator.getMinPrice(randomItemId);
+
+        assertEquals(1d, min, "Minimal price is evaluated incorrectly");
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(1);
+        while (interrupted.get() < started.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(started.get(), interrupted.get(), "Slow requests kept their threads");
+    }
+
+    @Test
+    @DisplayName("Lookup and aggregate latencies are recorded")
+    public void shouldRecordLatencies() {
+        int shopCount = 5;
+        PriceRetriever priceRetriever = mock(PriceRetriever.class);
+        when(priceRetriever.getPrice(anyLong(), anyLong())).thenReturn(1d);
+        priceAggregator.setPriceRetriever(priceRetriever);
+        priceAggregator.setShops(LongStream.range(0, shopCount).boxed().collect(toList()));
+
+        priceAggregator.getMinPrice(randomItemId);
+        priceAggregator.getMinPrice(randomItemId);
+
+        assertEquals(2L * shopCount, priceAggregator.getLookupLatency().getCount());
+        assertEquals(2, priceAggregator.getAggregateLatency().getCount());
+        assertTrue(priceAggregator.getAggregateLatency().getP99Nanos()
+                >= priceAggregator.getLookupLatency().getP50Nanos());
+    }
 }
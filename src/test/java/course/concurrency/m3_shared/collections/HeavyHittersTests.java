@@ -0,0 +1,140 @@
+package course.concurrency.m3_shared.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTests {
+
+    private static final int KEYS = 100_000;
+    private static final int HITS = 2_000_000;
+
+    @Test
+    public void shouldSizeSketchFromErrorBounds() {
+        CountMinSketch sketch = CountMinSketch.withError(0.001, 0.01);
+
+        assertEquals(4096, sketch.getWidth());
+        assertEquals(5, sketch.getDepth());
+        assertEquals(8L * 4096 * 5, sketch.getMemoryBytes());
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 1));
+    }
+
+    @Test
+    public void shouldEstimateWithinErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(1 << 14, 5);
+        Map<String, Long> exact = zipfStream(sketch::add);
+
+        long errorBound = sketch.getErrorBound();
+        long outOfBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() > errorBound) {
+                outOfBound++;
+            }
+        }
+        assertEquals(HITS, sketch.getTotal());
+        // the bound holds with probability 1 - e^-5 per key
+        assertTrue(outOfBound < exact.size() * Math.exp(-5), "out of bound " + outOfBound);
+    }
+
+    @Test
+    public void shouldSeparateKeysWithEqualHashCodes() {
+        CountMinSketch sketch = new CountMinSketch(1 << 14, 5);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("Aa");
+        }
+
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(100, sketch.estimate("Aa"));
+        assertEquals(0, sketch.estimate("BB"));
+    }
+
+    @Test
+    public void shouldFindMostPopularKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(50, new CountMinSketch(1 << 14, 5));
+        Map<String, Long> exact = zipfStream(heavyHitters::add);
+
+        List<HitEstimate> top = heavyHitters.top(20);
+        Set<String> reported = top.stream().map(HitEstimate::getKey).collect(Collectors.toSet());
+        List<String> expected = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(20)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        assertEquals(20, top.size());
+        assertTrue(reported.containsAll(expected), top + " " + expected);
+        for (HitEstimate hits : top) {
+            long count = exact.get(hits.getKey());
+            assertTrue(hits.getLowerBound() <= count && count <= hits.getCount(), hits + " " + count);
+        }
+    }
+
+    @Test
+    public void shouldCountConcurrentHits() throws InterruptedException {
+        int threads = 4;
+        int iterations = 200_000;
+        HeavyHitters heavyHitters = new HeavyHitters(3, new CountMinSketch(1 << 12, 4));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < iterations; it++) {
+                    heavyHitters.add("A");
+                    heavyHitters.add(it % 2 == 0 ? "B" : "miss-" + thread + "-" + it);
+                }
+            });
+        }
+        latch.countDown();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        List<HitEstimate> top = heavyHitters.top(2);
+        assertEquals(2L * threads * iterations, heavyHitters.getTotal());
+        assertEquals(List.of("A", "B"), top.stream().map(HitEstimate::getKey).collect(Collectors.toList()));
+        assertTrue(top.get(0).getCount() >= (long) threads * iterations);
+        assertTrue(top.get(0).getLowerBound() <= (long) threads * iterations);
+        assertTrue(top.get(1).getCount() >= (long) threads * iterations / 2);
+    }
+
+    // zipf-distributed hits over KEYS names with a fixed seed, returns the exact counts
+    private static Map<String, Long> zipfStream(Consumer<String> sink) {
+        double[] cumulative = new double[KEYS];
+        double sum = 0;
+        for (int i = 0; i < KEYS; i++) {
+            sum += 1 / Math.pow(i + 1, 1.1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(42);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < HITS; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            String key = "restaurant-" + (index < 0 ? -index - 1 : index);
+            sink.accept(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+        return exact;
+    }
+}
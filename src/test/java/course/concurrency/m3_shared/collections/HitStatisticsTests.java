@@ -0,0 +1,144 @@
+package course.concurrency.m3_shared.collections;
+
+import course.concurrency.m3_shared.collections.HitStatistics.Window;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HitStatisticsTests {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(1000));
+    private final HitStatistics statistics = new HitStatistics(clock::get);
+
+    @Test
+    public void shouldCountHitsOfCurrentSecond() {
+        hit("A", 3);
+        hit("B", 1);
+
+        HitSnapshot snapshot = statistics.snapshot();
+
+        assertEquals(3, snapshot.getHits("A", Window.MINUTE));
+        assertEquals(3, snapshot.getTotal("A"));
+        assertEquals(1, snapshot.getHits("B", Window.DAY));
+        assertEquals(0, snapshot.getTotal("C"));
+    }
+
+    @Test
+    public void shouldExpireHitsOutOfWindow() {
+        hit("A", 5);
+        advanceSeconds(1);
+        statistics.snapshot();
+        hit("A", 2);
+
+        advanceSeconds(59);
+        HitSnapshot minuteLater = statistics.snapshot();
+        assertEquals(2, minuteLater.getHits("A", Window.MINUTE));
+        assertEquals(7, minuteLater.getHits("A", Window.HOUR));
+
+        advanceSeconds(TimeUnit.HOURS.toSeconds(1));
+        HitSnapshot hourLater = statistics.snapshot();
+        assertEquals(0, hourLater.getHits("A", Window.MINUTE));
+        assertEquals(0, hourLater.getHits("A", Window.HOUR));
+        assertEquals(7, hourLater.getHits("A", Window.DAY));
+
+        advanceSeconds(TimeUnit.DAYS.toSeconds(1));
+        HitSnapshot dayLater = statistics.snapshot();
+        assertEquals(0, dayLater.getHits("A", Window.DAY));
+        assertEquals(7, dayLater.getTotal("A"));
+    }
+
+    @Test
+    public void shouldReuseRingSlotsOfPreviousLaps() {
+        for (int second = 0; second < 150; second++) {
+            hit("A", 1);
+            advanceSeconds(1);
+            statistics.snapshot();
+        }
+
+        HitSnapshot snapshot = statistics.snapshot();
+
+        assertEquals(59, snapshot.getHits("A", Window.MINUTE));
+        assertEquals(150, snapshot.getHits("A", Window.HOUR));
+        assertEquals(150, snapshot.getTotal("A"));
+    }
+
+    @Test
+    public void shouldRankTopKeys() {
+        hit("A", 2);
+        hit("B", 5);
+        hit("C", 2);
+        hit("D", 1);
+        statistics.register("E");
+
+        List<Map.Entry<String, Long>> top = statistics.snapshot().topN(3, Window.MINUTE);
+
+        assertEquals(List.of(Map.entry("B", 5L), Map.entry("A", 2L), Map.entry("C", 2L)), top);
+        assertEquals(4, statistics.snapshot().topN(10, Window.TOTAL).size());
+    }
+
+    @Test
+    public void shouldNotLoseHitsWhileRolling() throws InterruptedException {
+        int threads = 4;
+        int iterations = 500_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < iterations; it++) {
+                    statistics.increment("A");
+                }
+            });
+        }
+        latch.countDown();
+        executor.shutdown();
+        AtomicBoolean decreased = new AtomicBoolean();
+        long previous = 0;
+        while (!executor.isTerminated()) {
+            advanceSeconds(1);
+            long total = statistics.snapshot().getTotal("A");
+            decreased.compareAndSet(false, total < previous);
+            previous = total;
+        }
+
+        HitSnapshot snapshot = statistics.snapshot();
+        assertFalse(decreased.get());
+        assertEquals((long) threads * iterations, snapshot.getTotal("A"));
+        assertTrue(snapshot.getHits("A", Window.MINUTE) <= snapshot.getTotal("A"));
+    }
+
+    @Test
+    public void shouldRollOnItsOwn() throws InterruptedException {
+        HitStatistics ticking = new HitStatistics();
+        ticking.increment("A");
+        Thread.sleep(1200);
+        ticking.increment("A");
+
+        assertEquals(2, ticking.snapshot().getHits("A", Window.MINUTE));
+    }
+
+    private void hit(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            statistics.increment(key);
+        }
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(seconds));
+    }
+}
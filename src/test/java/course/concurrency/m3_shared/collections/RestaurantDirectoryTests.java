@@ -0,0 +1,110 @@
+package course.concurrency.m3_shared.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RestaurantDirectoryTests {
+
+    @Test
+    public void shouldFindEveryRestaurant() {
+        List<Restaurant> restaurants = restaurants("restaurant-", 100_000);
+        RestaurantDirectory directory = new RestaurantDirectory(restaurants);
+
+        assertEquals(100_000, directory.size());
+        for (Restaurant restaurant : restaurants) {
+            assertSame(restaurant, directory.get(new String(restaurant.getName())));
+        }
+        assertNull(directory.get("restaurant-100000"));
+        assertNull(directory.get(""));
+    }
+
+    @Test
+    public void shouldFindByPrefixInNameOrder() {
+        RestaurantDirectory directory = new RestaurantDirectory(List.of(
+                new Restaurant("Pizza Hut"), new Restaurant("Burger"), new Restaurant("Pizza"),
+                new Restaurant("Pizzeria"), new Restaurant("Pita")));
+
+        assertEquals(List.of("Pizza", "Pizza Hut", "Pizzeria"), names(directory.findByPrefix("Pizz", 10)));
+        assertEquals(List.of("Pita", "Pizza"), names(directory.findByPrefix("Pi", 2)));
+        assertEquals(5, directory.findByPrefix("", 10).size());
+        assertTrue(directory.findByPrefix("Sushi", 10).isEmpty());
+    }
+
+    @Test
+    public void shouldRejectDuplicates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RestaurantDirectory(List.of(new Restaurant("A"), new Restaurant("A"))));
+    }
+
+    @Test
+    public void shouldPutAndRemove() {
+        RestaurantDirectory directory = new RestaurantDirectory(List.of(new Restaurant("A")));
+        Restaurant b = new Restaurant("B");
+
+        directory.put(b);
+        assertSame(b, directory.get("B"));
+        assertEquals(2, directory.size());
+
+        assertSame(b, directory.remove("B"));
+        assertNull(directory.remove("B"));
+        assertNull(directory.get("B"));
+        assertEquals(List.of("A"), directory.getNames());
+    }
+
+    @Test
+    public void shouldSeeWholeCatalogsDuringReload() throws Exception {
+        List<Restaurant> first = restaurants("first-", 1000);
+        List<Restaurant> second = restaurants("second-", 1000);
+        RestaurantDirectory directory = new RestaurantDirectory(first);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(1);
+
+        List<Future<Boolean>> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(executor.submit(() -> {
+                boolean consistent = true;
+                while (done.getCount() > 0) {
+                    List<String> names = names(directory.findByPrefix("", 3000));
+                    String prefix = names.get(0).substring(0, names.get(0).indexOf('-'));
+                    consistent &= names.size() == 1000 && names.stream().allMatch(name -> name.startsWith(prefix));
+                }
+                return consistent;
+            }));
+        }
+        for (int i = 0; i < 1000; i++) {
+            directory.reload(i % 2 == 0 ? second : first);
+        }
+        done.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        for (Future<Boolean> reader : readers) {
+            assertTrue(reader.get());
+        }
+    }
+
+    private static List<Restaurant> restaurants(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Restaurant(prefix + i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<Restaurant> restaurants) {
+        return restaurants.stream().map(Restaurant::getName).collect(Collectors.toList());
+    }
+}
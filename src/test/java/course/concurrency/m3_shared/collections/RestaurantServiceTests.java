@@ -4,14 +4,19 @@ import course.concurrency.exams.auction.ExecutionStatistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RestaurantServiceTests {
@@ -70,4 +75,68 @@ public class RestaurantServiceTests {
 
         STAT.addData("service", end - start);
     }
+
+    @Test
+    public void testCountsMissesTogether() {
+        service.getByName("A");
+        service.getByName("missing-1");
+        service.getByName("missing-2");
+        service.addToStat("missing-3");
+
+        HitSnapshot snapshot = service.getStat();
+
+        assertEquals(1, snapshot.getTotal("A"));
+        assertEquals(3, snapshot.getTotal(RestaurantService.UNKNOWN));
+        assertFalse(snapshot.getKeys().contains("missing-1"));
+        assertEquals(4, snapshot.getKeys().size());
+    }
+
+    @Test
+    public void testCountsMissesTogetherWhenApproximate() {
+        RestaurantService approximate = new RestaurantService(StatMode.APPROXIMATE);
+        approximate.getByName("A");
+        approximate.getByName("missing-1");
+        approximate.getByName("missing-2");
+        approximate.addToStat("missing-3");
+
+        Map<String, Long> top = approximate.getTopEstimates(10).stream()
+                .collect(Collectors.toMap(HitEstimate::getKey, HitEstimate::getCount));
+
+        assertEquals(Map.of("A", 1L, RestaurantService.UNKNOWN, 3L), top);
+    }
+
+    @RepeatedTest(TEST_COUNT)
+    public void testApproximate() throws InterruptedException {
+        RestaurantService approximate = new RestaurantService(StatMode.APPROXIMATE);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < ITERATIONS / 10; it++) {
+                    approximate.getByName("A");
+                    approximate.getByName("B");
+                    approximate.getByName("C");
+                    approximate.getByName("missing-" + thread + "-" + it);
+                }
+            });
+        }
+
+        latch.countDown();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        List<HitEstimate> top = approximate.getTopEstimates(4);
+
+        assertEquals(Set.of("A", "B", "C", RestaurantService.UNKNOWN), top.stream().map(HitEstimate::getKey).collect(Collectors.toSet()));
+        for (HitEstimate hits : top) {
+            assertTrue(hits.getCount() >= ITERATIONS / 10 * POOL_SIZE);
+            assertTrue(hits.getLowerBound() <= ITERATIONS / 10 * POOL_SIZE);
+        }
+    }
 }
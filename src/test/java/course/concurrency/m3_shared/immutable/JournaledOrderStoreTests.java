@@ -0,0 +1,222 @@
+package course.concurrency.m3_shared.immutable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournaledOrderStoreTests {
+
+    private static final int POOL_SIZE = 8;
+
+    @TempDir
+    Path dir;
+
+    private final List<Item> items = List.of(new Item(), new Item());
+
+    @Test
+    public void testRecoverOrdersAfterRestart() {
+        long delivered;
+        long paid;
+        long packed;
+        long created;
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true)) {
+            delivered = store.createOrder(items);
+            paid = store.createOrder(items);
+            packed = store.createOrder(items);
+            created = store.createOrder(List.of(new Item()));
+            store.setPacked(delivered);
+            store.updatePaymentInfo(delivered, new PaymentInfo());
+            store.updatePaymentInfo(paid, new PaymentInfo());
+            store.setPacked(packed);
+        }
+
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true)) {
+            assertEquals(9, store.getRecoveredEvents());
+            assertTrue(store.isDelivered(delivered));
+            assertEquals(Order.Status.PAID, store.status(paid));
+            assertNotNull(store.getOrder(paid).getPaymentInfo());
+            assertEquals(Order.Status.PACKED, store.status(packed));
+            assertNull(store.getOrder(packed).getPaymentInfo());
+            assertEquals(1, store.getOrder(created).getItems().size());
+
+            store.updatePaymentInfo(packed, new PaymentInfo());
+            assertTrue(store.isDelivered(packed));
+            assertEquals(created + 1, store.createOrder(items));
+        }
+    }
+
+    @Test
+    public void testSnapshotDropsCoveredSegments() throws IOException {
+        long last;
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 100, Long.MAX_VALUE, 4)) {
+            for (int i = 0; i < 1000; i++) {
+                lifecycle(store);
+            }
+            assertEquals(40, segments().size());
+
+            long sequence = store.snapshot();
+            assertEquals(4000, sequence);
+            assertEquals(1, segments().size());
+
+            last = store.createOrder(items);
+            store.setPacked(last);
+        }
+
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 100, Long.MAX_VALUE, 4)) {
+            assertEquals(4000, store.getSnapshotSequence());
+            assertEquals(2, store.getRecoveredEvents());
+            for (long orderId = 1; orderId < last; orderId++) {
+                assertTrue(store.isDelivered(orderId));
+            }
+            assertEquals(Order.Status.PACKED, store.status(last));
+        }
+    }
+
+    @Test
+    public void testIgnoreTornRecord() throws IOException {
+        long orderId;
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true)) {
+            orderId = store.createOrder(items);
+            store.setPacked(orderId);
+        }
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[OrderJournal.RECORD_SIZE - 5], StandardOpenOption.APPEND);
+
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true)) {
+            assertEquals(2, store.getRecoveredEvents());
+            store.updatePaymentInfo(orderId, new PaymentInfo());
+            assertTrue(store.isDelivered(orderId));
+        }
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true)) {
+            assertEquals(4, store.getRecoveredEvents());
+            assertTrue(store.isDelivered(orderId));
+        }
+    }
+
+    @Test
+    public void testSnapshotOnlyCoversDurableEvents() throws InterruptedException {
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 1000, Long.MAX_VALUE, 4)) {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            executor.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    long sequence = store.snapshot();
+                    assertTrue(sequence <= store.getJournal().getDurableSequence());
+                }
+                return null;
+            });
+            runConcurrently(store, 200);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    public void testContinueAfterSnapshotOfLostEvents() throws IOException {
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 100, Long.MAX_VALUE, 4)) {
+            for (int i = 0; i < 10; i++) {
+                lifecycle(store);
+            }
+            assertEquals(40, store.snapshot());
+        }
+        // the last batch never made it to disk, but the snapshot already covers it
+        Path segment = segments().get(segments().size() - 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4L * OrderJournal.RECORD_SIZE);
+        }
+
+        long orderId;
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 100, Long.MAX_VALUE, 4)) {
+            assertEquals(40, store.getSnapshotSequence());
+            orderId = store.createOrder(items);
+            store.setPacked(orderId);
+        }
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 100, Long.MAX_VALUE, 4)) {
+            assertEquals(2, store.getRecoveredEvents());
+            assertEquals(Order.Status.PACKED, store.status(orderId));
+        }
+    }
+
+    @Test
+    public void testGroupCommitSharesSyncs() throws InterruptedException {
+        long appends = (long) POOL_SIZE * 200 * 4;
+
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir.resolve("batched"), true)) {
+            runConcurrently(store, 200);
+            assertTrue(store.getJournal().getSyncCount() < appends, "syncs " + store.getJournal().getSyncCount());
+        }
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir.resolve("single"), false)) {
+            runConcurrently(store, 200);
+            assertEquals(appends, store.getJournal().getSyncCount());
+        }
+    }
+
+    @Test
+    public void testRecoverConcurrentLifecyclesWithBackgroundSnapshots() throws InterruptedException {
+        int iterations = 2000;
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 1000, 5000, 4)) {
+            runConcurrently(store, iterations);
+        }
+
+        try (JournaledOrderStore store = JournaledOrderStore.open(dir, true, 1000, 5000, 4)) {
+            long orders = (long) POOL_SIZE * iterations;
+            assertTrue(store.getSnapshotSequence() > 0);
+            assertEquals(orders * 4, store.getSnapshotSequence() + store.getRecoveredEvents());
+            for (long orderId = 1; orderId <= orders; orderId++) {
+                assertTrue(store.isDelivered(orderId), "order " + orderId);
+            }
+            assertFalse(store.getOrder(orders).getItems().isEmpty());
+        }
+    }
+
+    private void runConcurrently(JournaledOrderStore store, int iterations) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+        CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                for (int it = 0; it < iterations; it++) {
+                    lifecycle(store);
+                }
+            });
+        }
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    private void lifecycle(OrderStore store) {
+        long orderId = store.createOrder(items);
+        store.setPacked(orderId);
+        store.updatePaymentInfo(orderId, new PaymentInfo());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package course.concurrency.m3_shared.immutable;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderStoreTests {
+
+    private final OrderStore store = new OrderStore();
+
+    private final List<Item> items = List.of(new Item(), new Item());
+
+    @Test
+    public void testDelivery() {
+        long orderId = store.createOrder(items);
+        store.setPacked(orderId);
+        store.updatePaymentInfo(orderId, new PaymentInfo());
+
+        assertTrue(store.isDelivered(orderId));
+    }
+
+    @Test
+    public void testDeliveryWithDuplicatePacking() {
+        long orderId = store.createOrder(items);
+        store.setPacked(orderId);
+        store.setPacked(orderId);
+        store.updatePaymentInfo(orderId, new PaymentInfo());
+
+        assertTrue(store.isDelivered(orderId));
+    }
+
+    @Test
+    public void testPartialComplete() {
+        long paid = store.createOrder(items);
+        long packed = store.createOrder(items);
+        store.updatePaymentInfo(paid, new PaymentInfo());
+        store.setPacked(packed);
+        store.setPacked(packed);
+
+        assertEquals(Order.Status.PAID, store.status(paid));
+        assertEquals(Order.Status.PACKED, store.status(packed));
+        assertFalse(store.isDelivered(paid));
+        assertFalse(store.isDelivered(packed));
+    }
+
+    @Test
+    public void shouldNotDeliverOrdersWithoutItems() {
+        long empty = store.createOrder(List.of());
+        long missing = store.createOrder(null);
+        store.setPacked(empty);
+        store.updatePaymentInfo(empty, new PaymentInfo());
+        store.updatePaymentInfo(missing, new PaymentInfo());
+        store.setPacked(missing);
+
+        assertEquals(Order.Status.PAID_AND_PACKED, store.status(empty));
+        assertEquals(Order.Status.PAID_AND_PACKED, store.status(missing));
+    }
+
+    @Test
+    public void shouldRejectMissingPaymentInfo() {
+        long orderId = store.createOrder(items);
+
+        assertThrows(IllegalArgumentException.class, () -> store.updatePaymentInfo(orderId, null));
+        assertEquals(Order.Status.NEW, store.status(orderId));
+    }
+
+    @Test
+    public void shouldExposeOrderViews() {
+        PaymentInfo first = new PaymentInfo();
+        long orderId = store.createOrder(items);
+
+        Order created = store.getOrder(orderId);
+        store.updatePaymentInfo(orderId, first);
+        store.updatePaymentInfo(orderId, new PaymentInfo());
+        Order paid = store.getOrder(orderId);
+        store.setPacked(orderId);
+        Order delivered = store.getOrder(orderId);
+
+        assertEquals(Order.Status.NEW, created.getStatus());
+        assertNull(created.getPaymentInfo());
+        assertFalse(created.isPacked());
+        assertEquals(items, created.getItems());
+        assertEquals(Order.Status.PAID, paid.getStatus());
+        assertSame(first, paid.getPaymentInfo());
+        assertEquals(Order.Status.DELIVERED, delivered.getStatus());
+        assertTrue(delivered.isPacked());
+        assertSame(first, delivered.getPaymentInfo());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownOrders() {
+        store.setPacked(42);
+        store.updatePaymentInfo(-1, new PaymentInfo());
+
+        assertThrows(IllegalArgumentException.class, () -> store.isDelivered(42));
+        assertThrows(IllegalArgumentException.class, () -> store.getOrder(0));
+    }
+
+    @RepeatedTest(5)
+    public void testWithManyThreads() throws InterruptedException {
+        int iterations = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+
+        BlockingQueue<Long> orderToPack = new ArrayBlockingQueue<>(iterations);
+        BlockingQueue<Long> orderToPay = new ArrayBlockingQueue<>(iterations);
+        BlockingQueue<Long> orderIdLog = new ArrayBlockingQueue<>(iterations);
+
+        for (int i = 0; i < iterations; ++i) {
+            long id = store.createOrder(items);
+            orderToPack.offer(id);
+            orderToPay.offer(id);
+            orderIdLog.offer(id);
+        }
+
+        for (int i = 0; i < iterations; ++i) {
+            executor.submit(() -> store.setPacked(orderToPack.poll()));
+            executor.submit(() -> store.updatePaymentInfo(orderToPay.poll(), new PaymentInfo()));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        for (long orderId : orderIdLog) {
+            assertTrue(store.isDelivered(orderId), String.format("Order %d is not completed", orderId));
+        }
+    }
+
+    @RepeatedTest(5)
+    public void shouldKeepFirstOfConcurrentPayments() throws InterruptedException {
+        int threads = 8;
+        long orderId = store.createOrder(items);
+        PaymentInfo[] payments = new PaymentInfo[threads];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            PaymentInfo payment = new PaymentInfo();
+            payments[i] = payment;
+            executor.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+
+                }
+                store.updatePaymentInfo(orderId, payment);
+                store.setPacked(orderId);
+            });
+        }
+        latch.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Order order = store.getOrder(orderId);
+        assertEquals(Order.Status.DELIVERED, order.getStatus());
+        assertTrue(List.of(payments).contains(order.getPaymentInfo()));
+    }
+}